@@ -0,0 +1,90 @@
+package hm.lisp;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EvaluatorBenchmark {
+    private static final String PROGRAM =
+        "(define (fib n) (if (< n 2) n (+ (fib (- n 1)) (fib (- n 2)))))\n" +
+        "(define nil \"null\")\n" +
+        "(define (countdown n) (if (= n 0) nil (pair n (countdown (decrement n)))))\n" +
+        "(define (reverse list result)\n" +
+        "  (if (= list nil) result (reverse (right list) (pair (left list) result))))\n" +
+        "(define numbers (countdown 100))\n" +
+        "(define (mix n)\n" +
+        "  (let ((a (+ n 1))\n" +
+        "        (b (* n 2)))\n" +
+        "    (let ((c (+ a b)))\n" +
+        "      (if (= n 0) c (mix (decrement n))))))";
+
+    @Param({"INTERPRETED", "COMPILED"})
+    CompilationMode mode;
+
+    private Environment environment;
+    private Object fib;
+    private Object reverse;
+    private Object primitiveCurry;
+    private Object lambdaCurry;
+    private Object let;
+
+    @Setup
+    public void load() throws IOException {
+        environment = new Environment(mode, StandardLibrary.environment());
+        Parser parser = new Parser(new StringReader(PROGRAM));
+        for (Object form = parser.next(); form != Parser.END; form = parser.next())
+            environment.execute(form);
+        fib = parse("(fib 20)");
+        reverse = parse("(reverse numbers nil)");
+        primitiveCurry = parse("((+ 5) 10)");
+        lambdaCurry = parse("(((lambda (x y) (* x y)) 5) 10)");
+        let = parse("(mix 1000)");
+    }
+
+    @Benchmark
+    public Object fib() {
+        return environment.execute(fib);
+    }
+
+    @Benchmark
+    public Object reverseList() {
+        return environment.execute(reverse);
+    }
+
+    @Benchmark
+    public Object primitiveAutoCurry() {
+        return environment.execute(primitiveCurry);
+    }
+
+    @Benchmark
+    public Object lambdaAutoCurry() {
+        return environment.execute(lambdaCurry);
+    }
+
+    @Benchmark
+    public Object let() {
+        return environment.execute(let);
+    }
+
+    private static Object parse(String code) throws IOException {
+        return new Parser(new StringReader(code)).next();
+    }
+}
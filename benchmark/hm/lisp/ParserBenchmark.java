@@ -0,0 +1,49 @@
+package hm.lisp;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParserBenchmark {
+    @Param({"1000", "100000"})
+    int definitions;
+
+    private String source;
+
+    @Setup
+    public void generate() {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < definitions; i++)
+            builder.append("(define (f").append(i).append(" x y)\n")
+                   .append("  (let ((z (+ x ").append(i).append(".5)))\n")
+                   .append("    (if (> z y) \"larger\" (f").append(i).append(" (increment x) y))))\n");
+        source = builder.toString();
+    }
+
+    @Benchmark
+    public int parse() throws IOException {
+        Parser parser = new Parser(new StringReader(source));
+        int forms = 0;
+        while (parser.next() != Parser.END)
+            forms++;
+        return forms;
+    }
+}
@@ -0,0 +1,57 @@
+package hm.lisp;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PrimitiveCallBenchmark {
+    private Program sum;
+    private Program primitiveSum;
+    private Program negation;
+
+    @Setup
+    public void load() throws IOException {
+        Environment environment = new Environment(CompilationMode.INTERPRETED, StandardLibrary.environment());
+        environment.execute(parse("(define x 20)"));
+        environment.execute(parse("(define y 22)"));
+        sum = environment.analyze(parse("(+ x y)"));
+        primitiveSum = environment.analyze(parse("(<primitive>+ x y)"));
+        negation = environment.analyze(parse("(not (< x y))"));
+    }
+
+    @Benchmark
+    public Object sum() {
+        return sum.run();
+    }
+
+    @Benchmark
+    public Object primitiveSum() {
+        return primitiveSum.run();
+    }
+
+    @Benchmark
+    public Object negation() {
+        return negation.run();
+    }
+
+    private static Object parse(String code) throws IOException {
+        return new Parser(new StringReader(code)).next();
+    }
+}
@@ -0,0 +1,225 @@
+package hm.lisp;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+class Analyzer {
+    private static final Symbol LAMBDA = Symbol.intern("lambda");
+    private static final Symbol DEFINE = Symbol.intern("define");
+    private static final Symbol DEFINE_MEMO = Symbol.intern("define-memo");
+    private static final Symbol LET = Symbol.intern("let");
+    private static final Symbol IF = Symbol.intern("if");
+    private static final Symbol DO = Symbol.intern("do");
+    private static final Symbol FUTURE = Symbol.intern("future");
+    private static final Symbol DELAY = Symbol.intern("delay");
+    private static final Symbol PARALLEL = Symbol.intern("parallel");
+
+    private final Environment environment;
+
+    Analyzer(Environment environment) {
+        this.environment = environment;
+    }
+
+    Program analyze(Object element, boolean optimize) {
+        Layout layout = new Layout(null);
+        Node body = analyze(element, layout, false);
+        if (optimize)
+            body = body.optimize();
+        return new Program(body, layout.size(), !isExpression(element));
+    }
+
+    private Node analyze(Object element, Layout layout, boolean tail) {
+        if (isExpression(element))
+            return analyzeExpression((List) element, layout, tail);
+        else if (isPrimitiveName(element))
+            return new Constant(Primitives.get(primitiveName(element)));
+        else if (element instanceof Symbol)
+            return analyzeSymbol((Symbol) element, layout);
+        else
+            return new Constant(element);
+    }
+
+    private Node analyzeSymbol(Symbol name, Layout layout) {
+        int depth = 0;
+        for (Layout scope = layout; scope != null; scope = scope.parent, depth++) {
+            int slot = scope.find(name, depth > 0);
+            if (slot >= 0)
+                return new LocalRef(name, depth, slot);
+        }
+        return new GlobalRef(environment.global(name));
+    }
+
+    private Node analyzeExpression(List list, Layout layout, boolean tail) {
+        if (isLambda(list))
+            return analyzeLambda((List) list.get(1), list.get(2), layout);
+        else if (isDefinition(list))
+            return analyzeDefinition(list, layout);
+        else if (isMemoDefinition(list))
+            return analyzeMemoDefinition(list, layout);
+        else if (isLetExpression(list))
+            return analyzeLet(list, layout, tail);
+        else if (isConditional(list))
+            return new If(analyze(list.get(1), layout, false),
+                          analyze(list.get(2), layout, tail),
+                          analyze(list.get(3), layout, tail));
+        else if (isDelay(list))
+            return new Delay(analyzeThunk(list.get(1), layout));
+        else if (isFuture(list))
+            return new Spawn(analyzeThunk(list.get(1), layout));
+        else if (isParallel(list))
+            return new Parallel(analyzeThunks(list.subList(1, list.size()), layout));
+        else if (isSequential(list))
+            return new Do(analyzeSequence(list.subList(1, list.size()), layout, tail));
+        else if (isPrimitive(list))
+            return PrimitiveCall.of(Primitives.get(primitiveName(list.get(0))), analyzeAll(list.subList(1, list.size()), layout));
+        else
+            return new Call(analyze(list.get(0), layout, false),
+                            analyzeAll(list.subList(1, list.size()), layout),
+                            tail);
+    }
+
+    private Lambda analyzeLambda(List arguments, Object body, Layout layout) {
+        Layout local = new Layout(layout);
+        List<Symbol> parameters = new ArrayList<>();
+        for (Object argument : arguments) {
+            parameters.add((Symbol) argument);
+            local.declare((Symbol) argument);
+        }
+        Node analyzedBody = analyze(body, local, true);
+        Lambda lambda = new Lambda(parameters, local.size(), analyzedBody);
+        lambda.owner = environment.compiler;
+        return lambda;
+    }
+
+    private Lambda analyzeThunk(Object body, Layout layout) {
+        return analyzeLambda(Collections.emptyList(), body, layout);
+    }
+
+    private List<Lambda> analyzeThunks(List bodies, Layout layout) {
+        List<Lambda> thunks = new ArrayList<>();
+        for (Object body : bodies)
+            thunks.add(analyzeThunk(body, layout));
+        return thunks;
+    }
+
+    private Node analyzeDefinition(List list, Layout layout) {
+        Object identifier = list.get(1);
+        Object definition = list.get(2);
+        if (isExpression(identifier)) {
+            List functionDefinition = (List) identifier;
+            Object name = functionDefinition.get(0);
+            List arguments = functionDefinition.subList(1, functionDefinition.size());
+            return new Define(definable(name, layout), named(analyzeLambda(arguments, definition, layout), name));
+        } else {
+            return new Define(definable(identifier, layout), named(analyze(definition, layout, false), identifier));
+        }
+    }
+
+    private Node named(Node node, Object name) {
+        if (node instanceof Lambda)
+            ((Lambda) node).name = name.toString();
+        return node;
+    }
+
+    private Node analyzeMemoDefinition(List list, Layout layout) {
+        List functionDefinition = (List) list.get(1);
+        Object name = functionDefinition.get(0);
+        List arguments = functionDefinition.subList(1, functionDefinition.size());
+        Lambda lambda = (Lambda) named(analyzeLambda(arguments, list.get(2), layout), name);
+        Global global = definable(name, layout);
+        return new Define(global, new Memoize(lambda, global));
+    }
+
+    private Global definable(Object identifier, Layout layout) {
+        if (isPrimitiveName(identifier))
+            throw new RuntimeException("Cannot define new primitives");
+        return environment.global((Symbol) identifier);
+    }
+
+    private Node analyzeLet(List list, Layout layout, boolean tail) {
+        List<List> bindings = (List) list.get(1);
+        List<Symbol> names = new ArrayList<>();
+        int[] slots = new int[bindings.size()];
+        List<Node> definitions = new ArrayList<>();
+        for (int i = 0; i < slots.length; i++) {
+            Symbol name = (Symbol) bindings.get(i).get(0);
+            names.add(name);
+            slots[i] = layout.reserve(name);
+            definitions.add(analyze(bindings.get(i).get(1), layout, false));
+            layout.reveal(slots[i]);
+        }
+        Node body = analyze(list.get(2), layout, tail);
+        for (int slot : slots)
+            layout.hide(slot);
+        return new Let(names, slots, definitions, body);
+    }
+
+    private List<Node> analyzeAll(List elements, Layout layout) {
+        List<Node> nodes = new ArrayList<>();
+        for (Object element : elements)
+            nodes.add(analyze(element, layout, false));
+        return nodes;
+    }
+
+    private List<Node> analyzeSequence(List elements, Layout layout, boolean tail) {
+        List<Node> nodes = new ArrayList<>();
+        for (int i = 0; i < elements.size(); i++)
+            nodes.add(analyze(elements.get(i), layout, tail && i == elements.size() - 1));
+        return nodes;
+    }
+
+    private String primitiveName(Object operator) {
+        return ((Symbol) operator).name.substring(Primitives.PREFIX.length());
+    }
+
+    private boolean isExpression(Object element) {
+        return element instanceof List;
+    }
+
+    private boolean isLetExpression(List list) {
+        return list.size() == 3 &&
+               list.get(0) == LET &&
+               isExpression(list.get(1));
+    }
+
+    private boolean isSequential(List list) {
+        return list.get(0) == DO && list.size() > 2;
+    }
+
+    private boolean isConditional(List list) {
+        return list.get(0) == IF && list.size() == 4;
+    }
+
+    private boolean isLambda(List list) {
+        return list.get(0) == LAMBDA && list.size() == 3;
+    }
+
+    private boolean isDefinition(List list) {
+        return list.get(0) == DEFINE && list.size() == 3;
+    }
+
+    private boolean isDelay(List list) {
+        return list.get(0) == DELAY && list.size() == 2;
+    }
+
+    private boolean isFuture(List list) {
+        return list.get(0) == FUTURE && list.size() == 2;
+    }
+
+    private boolean isParallel(List list) {
+        return list.get(0) == PARALLEL && list.size() > 1;
+    }
+
+    private boolean isMemoDefinition(List list) {
+        return list.get(0) == DEFINE_MEMO && list.size() == 3 && isExpression(list.get(1));
+    }
+
+    private boolean isPrimitive(List list) {
+        return isPrimitiveName(list.get(0));
+    }
+
+    private boolean isPrimitiveName(Object element) {
+        return element instanceof Symbol && ((Symbol) element).name.startsWith(Primitives.PREFIX);
+    }
+}
@@ -0,0 +1,17 @@
+package hm.lisp;
+
+abstract class Arithmetic extends BinaryPrimitive {
+    Arithmetic(String name) {
+        super(name);
+    }
+
+    abstract double compute(double x, double y);
+
+    Object apply2(Object x, Object y) {
+        return Numbers.box(compute((double) x, (double) y));
+    }
+
+    boolean pure() {
+        return true;
+    }
+}
@@ -0,0 +1,24 @@
+package hm.lisp;
+
+import java.util.List;
+
+class ArithmeticCall extends PrimitiveCall {
+    private final Arithmetic arithmetic;
+    private final Node left;
+    private final Node right;
+
+    ArithmeticCall(Arithmetic arithmetic, List<Node> arguments) {
+        super(arithmetic, arguments);
+        this.arithmetic = arithmetic;
+        this.left = arguments.get(0);
+        this.right = arguments.get(1);
+    }
+
+    Object eval(Scope scope) {
+        return Numbers.box(evalNumber(scope));
+    }
+
+    double evalNumber(Scope scope) {
+        return arithmetic.compute(left.evalNumber(scope), right.evalNumber(scope));
+    }
+}
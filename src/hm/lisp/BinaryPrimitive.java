@@ -0,0 +1,13 @@
+package hm.lisp;
+
+abstract class BinaryPrimitive extends Primitive {
+    BinaryPrimitive(String name) {
+        super(name);
+    }
+
+    abstract Object apply2(Object x, Object y);
+
+    Object apply(Object[] arguments) {
+        return apply2(arguments[0], arguments[1]);
+    }
+}
@@ -0,0 +1,134 @@
+package hm.lisp;
+
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.lang.String.format;
+
+class Budget {
+    private static final int CLOCK_INTERVAL = 1024;
+
+    private final Budget parent;
+    private final Set<Budget> live;
+    final ForkJoinPool pool;
+    private final Limits limits;
+    private final long deadline;
+    final boolean limited;
+    private final AtomicLong steps;
+    private final AtomicLong cells;
+    private int depth;
+    private volatile boolean cancelled;
+    private boolean finished;
+
+    Budget(Limits limits, ForkJoinPool pool, Set<Budget> live) {
+        this.parent = null;
+        this.live = live;
+        this.pool = pool;
+        this.limits = limits;
+        this.deadline = System.nanoTime() + limits.timeout;
+        this.limited = limits.steps > 0 || limits.depth > 0 || limits.timeout > 0 || limits.cells > 0;
+        this.steps = new AtomicLong();
+        this.cells = new AtomicLong();
+        live.add(this);
+    }
+
+    private Budget(Budget parent) {
+        this.parent = parent;
+        this.live = parent.live;
+        this.pool = parent.pool;
+        this.limits = parent.limits;
+        this.deadline = parent.deadline;
+        this.limited = parent.limited;
+        this.steps = parent.steps;
+        this.cells = parent.cells;
+        this.depth = parent.depth;
+        live.add(this);
+    }
+
+    static Budget current() {
+        return Instrumentation.current().budget();
+    }
+
+    static Object enter(Instrumentation instrumentation, Closure closure, Object[] arguments) {
+        Budget budget = instrumentation.budget();
+        if (budget == null || !budget.limited) {
+            instrumentation.poll();
+            return Profiler.enter(instrumentation, closure, arguments);
+        }
+        budget.step();
+        budget.depth++;
+        try {
+            if (budget.limits.depth > 0 && budget.depth > budget.limits.depth)
+                throw new EvaluationAbortedException(format("Depth limit of %d exceeded", budget.limits.depth));
+            return Profiler.enter(instrumentation, closure, arguments);
+        } finally {
+            budget.depth--;
+        }
+    }
+
+    static void tick() {
+        if (!Instrumentation.active())
+            return;
+        Budget budget = current();
+        if (budget != null && budget.limited)
+            budget.step();
+        else if (budget != null)
+            budget.poll();
+    }
+
+    static void allocate(long cells) {
+        if (!Instrumentation.active())
+            return;
+        Budget budget = current();
+        if (budget != null && budget.limits.cells > 0 && budget.cells.addAndGet(cells) > budget.limits.cells)
+            throw new EvaluationAbortedException(format("Cell limit of %d exceeded", budget.limits.cells));
+    }
+
+    boolean cancelled() {
+        for (Budget budget = this; budget != null; budget = budget.parent)
+            if (budget.cancelled)
+                return true;
+        return false;
+    }
+
+    void poll() {
+        if (cancelled())
+            throw new EvaluationAbortedException("Evaluation cancelled");
+    }
+
+    private void step() {
+        long steps = this.steps.incrementAndGet();
+        poll();
+        if (limits.steps > 0 && steps > limits.steps)
+            throw new EvaluationAbortedException(format("Step limit of %d exceeded", limits.steps));
+        if (limits.timeout > 0 && steps % CLOCK_INTERVAL == 0 && System.nanoTime() - deadline > 0)
+            throw new EvaluationAbortedException(format("Time limit of %d ms exceeded", limits.timeout / 1000000));
+    }
+
+    synchronized void cancel() {
+        if (cancelled || finished)
+            return;
+        cancelled = true;
+        Instrumentation.activated();
+    }
+
+    synchronized void finish() {
+        live.remove(this);
+        finished = true;
+        if (cancelled)
+            Instrumentation.deactivated();
+    }
+
+    Budget fork() {
+        return new Budget(this);
+    }
+
+    Budget attach() {
+        return Instrumentation.current().attach(this);
+    }
+
+    static void detach(Budget previous) {
+        Instrumentation.current().attach(previous);
+    }
+}
@@ -0,0 +1,87 @@
+package hm.lisp;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+class BytecodeCompiler {
+    private static final int TIERED_THRESHOLD = 1000;
+
+    private final CompilationMode mode;
+    private final NativeLoader loader = new NativeLoader();
+    private final Map<Global, Set<Lambda>> dependents = new HashMap<>();
+    private final Map<Lambda, NativeCode> foreign = new HashMap<>();
+    private final Set<Lambda> compiling = new HashSet<>();
+    private int classes;
+
+    BytecodeCompiler(CompilationMode mode) {
+        this.mode = mode;
+    }
+
+    synchronized void defined(Global global) {
+        Set<Lambda> invalidated = dependents.remove(global);
+        if (invalidated != null)
+            for (Lambda lambda : invalidated) {
+                if (lambda.owner != this) {
+                    foreign.remove(lambda);
+                    continue;
+                }
+                lambda.code = null;
+                arm(lambda);
+            }
+        if (global.value instanceof Closure) {
+            Closure closure = (Closure) global.value;
+            if (closure.bound.length == 0 && closure.lambda.code == null)
+                arm(closure.lambda);
+        }
+    }
+
+    synchronized void called(Lambda lambda) {
+        if (lambda.compiler == this && --lambda.countdown <= 0) {
+            lambda.compiler = null;
+            compile(lambda);
+        }
+    }
+
+    synchronized NativeCode compile(Lambda lambda) {
+        NativeCode existing = lambda.owner == this ? lambda.code : foreign.get(lambda);
+        if (existing != null)
+            return existing;
+        if (!FunctionCompiler.compilable(lambda) || !compiling.add(lambda))
+            return null;
+        try {
+            String owner = "hm/lisp/compiled/Function" + ++classes;
+            for (ValueType returns : ValueType.values()) {
+                FunctionCompiler function = new FunctionCompiler(this, lambda, owner, returns);
+                ValueType type = function.compileBody();
+                if (type == null)
+                    return null;
+                if (type == returns) {
+                    NativeCode code = function.load(loader);
+                    return code == null ? null : install(lambda, code);
+                }
+            }
+            return null;
+        } finally {
+            compiling.remove(lambda);
+        }
+    }
+
+    private NativeCode install(Lambda lambda, NativeCode code) {
+        for (Global global : code.dependencies)
+            dependents.computeIfAbsent(global, key -> new HashSet<>()).add(lambda);
+        if (lambda.owner == this)
+            lambda.code = code;
+        else
+            foreign.put(lambda, code);
+        return code;
+    }
+
+    private void arm(Lambda lambda) {
+        if (mode == CompilationMode.INTERPRETED || lambda.owner != this)
+            return;
+        lambda.countdown = mode == CompilationMode.COMPILED ? 1 : TIERED_THRESHOLD;
+        lambda.compiler = this;
+    }
+}
@@ -0,0 +1,118 @@
+package hm.lisp;
+
+import java.util.ArrayList;
+import java.util.List;
+
+class Call extends Node {
+    private final Node operator;
+    private final List<Node> arguments;
+    private final boolean tail;
+    private transient InlineCache cache;
+
+    Call(Node operator, List<Node> arguments, boolean tail) {
+        this.operator = operator;
+        this.arguments = arguments;
+        this.tail = tail;
+    }
+
+    Object eval(Scope scope) {
+        Object function = operator.eval(scope);
+        int arity = arguments.size();
+        InlineCache cache = this.cache;
+        if (cache == null || (cache != InlineCache.MEGAMORPHIC && !cache.matches(function)))
+            this.cache = cache = InlineCache.link(cache, function, arity);
+        Primitive primitive = Instrumentation.active() ? null : cache.primitive;
+        if (primitive != null && arity == 1)
+            return primitive.apply1(arguments.get(0).eval(scope));
+        if (primitive != null && arity == 2)
+            return primitive.apply2(arguments.get(0).eval(scope), arguments.get(1).eval(scope));
+        Object[] values = new Object[arity];
+        for (int i = 0; i < arity; i++)
+            values[i] = arguments.get(i).eval(scope);
+        if (primitive != null)
+            return primitive.apply(values);
+        return tail ? new TailCall(function, values) : Closure.call(function, values);
+    }
+
+    Node optimize() {
+        Call call = new Call(operator.optimize(), optimizeAll(arguments), tail);
+        Node specialized = call.specialize(call);
+        return specialized == null ? call : specialized;
+    }
+
+    private Node specialize(Node slow) {
+        if (operator instanceof Call && ((Call) operator).operator instanceof GlobalRef)
+            return flatten((Call) operator, slow);
+        Node callee = operator instanceof GlobalRef ? pinned(((GlobalRef) operator).global) : operator;
+        if (!Guarded.constant(callee) || !(Guarded.value(callee) instanceof Closure))
+            return null;
+        Closure closure = (Closure) Guarded.value(callee);
+        Lambda lambda = closure.lambda;
+        List<Node> assumptions = new ArrayList<>(arguments);
+        int count = closure.bound.length + arguments.size();
+        if (count < lambda.parameters.size() && constant(arguments)) {
+            Object[] values = new Object[arguments.size()];
+            for (int i = 0; i < values.length; i++)
+                values[i] = Guarded.value(arguments.get(i));
+            assumptions.add(callee);
+            return Guarded.guard(assumptions, new Constant(closure.bind(values)), slow);
+        }
+        if (count != lambda.parameters.size() || !lambda.body.inlinable() || !trivial(arguments))
+            return null;
+        Node[] parameters = new Node[count];
+        for (int i = 0; i < closure.bound.length; i++)
+            parameters[i] = new Constant(closure.bound[i]);
+        for (int i = 0; i < arguments.size(); i++) {
+            Node argument = arguments.get(i);
+            parameters[closure.bound.length + i] = Guarded.constant(argument) ? new Constant(Guarded.value(argument)) : argument;
+        }
+        lambda.body.guards(assumptions);
+        assumptions.add(callee);
+        return Guarded.guard(assumptions, lambda.body.inline(parameters).optimize(), slow);
+    }
+
+    private Node flatten(Call inner, Node slow) {
+        Global global = ((GlobalRef) inner.operator).global;
+        if (!(global.value instanceof Closure))
+            return null;
+        Closure closure = (Closure) global.value;
+        List<Node> combined = new ArrayList<>(inner.arguments);
+        combined.addAll(arguments);
+        if (closure.bound.length + combined.size() != closure.lambda.parameters.size())
+            return null;
+        Call call = new Call(inner.operator, combined, tail);
+        Node specialized = call.specialize(slow);
+        return specialized == null ? new Guarded(global, closure, call, slow) : specialized;
+    }
+
+    private static Node pinned(Global global) {
+        Object value = global.value;
+        return new Guarded(global, value, new Constant(value), new GlobalRef(global));
+    }
+
+    private static boolean constant(List<Node> arguments) {
+        for (Node argument : arguments)
+            if (!Guarded.constant(argument))
+                return false;
+        return true;
+    }
+
+    private static boolean trivial(List<Node> arguments) {
+        for (Node argument : arguments)
+            if (!(Guarded.constant(argument) || argument instanceof LocalRef || argument instanceof GlobalRef))
+                return false;
+        return true;
+    }
+
+    ValueType compile(FunctionCompiler compiler) {
+        if (!(operator instanceof GlobalRef))
+            return null;
+        return compiler.call(((GlobalRef) operator).global, arguments, tail);
+    }
+
+    void describe(Substitution substitution, StringBuilder out) {
+        out.append('(');
+        operator.describe(substitution, out);
+        describeAll(arguments, substitution, out);
+    }
+}
@@ -0,0 +1,129 @@
+package hm.lisp;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+class ClassAssembler {
+    private static final int VERSION = 49;
+    private static final int ACC_PUBLIC = 0x0001;
+    private static final int ACC_FINAL = 0x0010;
+    private static final int ACC_SUPER = 0x0020;
+
+    private final ByteArrayOutputStream poolBytes = new ByteArrayOutputStream();
+    private final DataOutputStream pool = new DataOutputStream(poolBytes);
+    private final Map<String, Integer> constants = new HashMap<>();
+    private final List<MethodAssembler> methods = new ArrayList<>();
+    private final String name;
+    private int poolSize = 1;
+
+    ClassAssembler(String name) {
+        this.name = name;
+    }
+
+    String name() {
+        return name;
+    }
+
+    MethodAssembler method(int access, String name, String descriptor, int maxLocals) {
+        MethodAssembler method = new MethodAssembler(access, utf8(name), utf8(descriptor), maxLocals);
+        methods.add(method);
+        return method;
+    }
+
+    int utf8(String value) {
+        return constant("U" + value, 1, () -> {
+            pool.writeByte(1);
+            pool.writeUTF(value);
+        });
+    }
+
+    int classReference(String internalName) {
+        int nameIndex = utf8(internalName);
+        return constant("C" + internalName, 1, () -> {
+            pool.writeByte(7);
+            pool.writeShort(nameIndex);
+        });
+    }
+
+    int methodReference(String owner, String name, String descriptor) {
+        int ownerIndex = classReference(owner);
+        int nameIndex = utf8(name);
+        int descriptorIndex = utf8(descriptor);
+        int nameAndType = constant("T" + name + ":" + descriptor, 1, () -> {
+            pool.writeByte(12);
+            pool.writeShort(nameIndex);
+            pool.writeShort(descriptorIndex);
+        });
+        return constant("M" + owner + "." + name + ":" + descriptor, 1, () -> {
+            pool.writeByte(10);
+            pool.writeShort(ownerIndex);
+            pool.writeShort(nameAndType);
+        });
+    }
+
+    int doubleConstant(double value) {
+        return constant("D" + Double.doubleToRawLongBits(value), 2, () -> {
+            pool.writeByte(6);
+            pool.writeDouble(value);
+        });
+    }
+
+    byte[] assemble(String superName, String... interfaces) {
+        try {
+            int thisIndex = classReference(name);
+            int superIndex = classReference(superName);
+            int[] interfaceIndexes = new int[interfaces.length];
+            for (int i = 0; i < interfaces.length; i++)
+                interfaceIndexes[i] = classReference(interfaces[i]);
+            int codeIndex = utf8("Code");
+            List<byte[]> methodBytes = new ArrayList<>();
+            for (MethodAssembler method : methods)
+                methodBytes.add(method.assemble(codeIndex));
+
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(0xCAFEBABE);
+            out.writeShort(0);
+            out.writeShort(VERSION);
+            out.writeShort(poolSize);
+            out.write(poolBytes.toByteArray());
+            out.writeShort(ACC_PUBLIC | ACC_FINAL | ACC_SUPER);
+            out.writeShort(thisIndex);
+            out.writeShort(superIndex);
+            out.writeShort(interfaceIndexes.length);
+            for (int index : interfaceIndexes)
+                out.writeShort(index);
+            out.writeShort(0);
+            out.writeShort(methodBytes.size());
+            for (byte[] method : methodBytes)
+                out.write(method);
+            out.writeShort(0);
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private int constant(String key, int size, Entry entry) {
+        Integer index = constants.get(key);
+        if (index != null)
+            return index;
+        try {
+            entry.write();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        constants.put(key, poolSize);
+        poolSize += size;
+        return poolSize - size;
+    }
+
+    private interface Entry {
+        void write() throws IOException;
+    }
+}
@@ -0,0 +1,100 @@
+package hm.lisp;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.List;
+
+import static java.lang.String.format;
+
+class Closure implements Serializable {
+    private static final Object[] NO_ARGUMENTS = new Object[0];
+
+    final Lambda lambda;
+    final Scope scope;
+    final Object[] bound;
+
+    Closure(Lambda lambda, Scope scope) {
+        this(lambda, scope, NO_ARGUMENTS);
+    }
+
+    private Closure(Lambda lambda, Scope scope, Object[] bound) {
+        this.lambda = lambda;
+        this.scope = scope;
+        this.bound = bound;
+    }
+
+    static Object call(Object function, Object[] arguments) {
+        while (true) {
+            if (function instanceof Primitive) {
+                Budget.tick();
+                return ((Primitive) function).apply(arguments);
+            }
+            if (function instanceof Memoized)
+                return ((Memoized) function).call(arguments);
+            if (!(function instanceof Closure))
+                throw new RuntimeException(format("Undefined operator %s", function));
+            Object result = Instrumentation.active()
+                            ? Budget.enter(Instrumentation.current(), (Closure) function, arguments)
+                            : ((Closure) function).enter(arguments, false);
+            if (!(result instanceof TailCall))
+                return result;
+            TailCall tailCall = (TailCall) result;
+            function = tailCall.function;
+            arguments = tailCall.arguments;
+        }
+    }
+
+    private static Object complete(Object result) {
+        if (!(result instanceof TailCall))
+            return result;
+        TailCall tailCall = (TailCall) result;
+        return call(tailCall.function, tailCall.arguments);
+    }
+
+    Object enter(Object[] arguments, boolean instrumented) {
+        List<Symbol> parameters = lambda.parameters;
+        BytecodeCompiler compiler = lambda.compiler;
+        if (compiler != null)
+            compiler.called(lambda);
+        NativeCode code = lambda.code;
+        if (code != null && bound.length == 0 && arguments.length == parameters.size() && code.accepts(arguments) &&
+            !instrumented)
+            return code.function.invoke(arguments);
+
+        int count = bound.length + arguments.length;
+        if (count < parameters.size())
+            return new Closure(lambda, scope, concat(arguments));
+
+        int used = parameters.size() - bound.length;
+        Object[] slots = new Object[lambda.frameSize];
+        System.arraycopy(bound, 0, slots, 0, bound.length);
+        System.arraycopy(arguments, 0, slots, bound.length, used);
+        Scope frame = new Scope(slots, scope);
+
+        if (used == arguments.length)
+            return lambda.body.eval(frame);
+        else
+            return new TailCall(complete(lambda.body.eval(frame)),
+                                Arrays.copyOfRange(arguments, used, arguments.length));
+    }
+
+    Closure bind(Object[] arguments) {
+        return new Closure(lambda, scope, concat(arguments));
+    }
+
+    private Object[] concat(Object[] arguments) {
+        Object[] values = Arrays.copyOf(bound, bound.length + arguments.length);
+        System.arraycopy(arguments, 0, values, bound.length, arguments.length);
+        return values;
+    }
+
+    void describe(StringBuilder out) {
+        lambda.describe(new Substitution(scope, bound, 0, true), bound.length, out);
+    }
+
+    public String toString() {
+        StringBuilder out = new StringBuilder();
+        describe(out);
+        return out.toString();
+    }
+}
@@ -0,0 +1,17 @@
+package hm.lisp;
+
+abstract class Comparison extends BinaryPrimitive {
+    Comparison(String name) {
+        super(name);
+    }
+
+    abstract boolean test(double x, double y);
+
+    Object apply2(Object x, Object y) {
+        return test((double) x, (double) y);
+    }
+
+    boolean pure() {
+        return true;
+    }
+}
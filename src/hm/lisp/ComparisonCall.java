@@ -0,0 +1,24 @@
+package hm.lisp;
+
+import java.util.List;
+
+class ComparisonCall extends PrimitiveCall {
+    private final Comparison comparison;
+    private final Node left;
+    private final Node right;
+
+    ComparisonCall(Comparison comparison, List<Node> arguments) {
+        super(comparison, arguments);
+        this.comparison = comparison;
+        this.left = arguments.get(0);
+        this.right = arguments.get(1);
+    }
+
+    Object eval(Scope scope) {
+        return evalBoolean(scope);
+    }
+
+    boolean evalBoolean(Scope scope) {
+        return comparison.test(left.evalNumber(scope), right.evalNumber(scope));
+    }
+}
@@ -0,0 +1,7 @@
+package hm.lisp;
+
+public enum CompilationMode {
+    INTERPRETED,
+    COMPILED,
+    TIERED
+}
@@ -0,0 +1,5 @@
+package hm.lisp;
+
+public interface CompiledFunction {
+    Object invoke(Object[] arguments);
+}
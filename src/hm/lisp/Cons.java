@@ -0,0 +1,25 @@
+package hm.lisp;
+
+import java.io.Serializable;
+
+class Cons implements Serializable {
+    static final Cons EMPTY = new Cons(null, null);
+
+    final Object car;
+    final Object cdr;
+
+    Cons(Object car, Object cdr) {
+        this.car = car;
+        this.cdr = cdr;
+    }
+
+    private Object readResolve() {
+        return car == null && cdr == null ? EMPTY : this;
+    }
+
+    public String toString() {
+        StringBuilder out = new StringBuilder();
+        Printer.print(this, out);
+        return out.toString();
+    }
+}
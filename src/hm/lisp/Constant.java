@@ -0,0 +1,25 @@
+package hm.lisp;
+
+class Constant extends Node {
+    final Object value;
+
+    Constant(Object value) {
+        this.value = value;
+    }
+
+    Object eval(Scope scope) {
+        return value;
+    }
+
+    ValueType compile(FunctionCompiler compiler) {
+        return value instanceof Double ? compiler.number((Double) value) : null;
+    }
+
+    boolean inlinable() {
+        return true;
+    }
+
+    void describe(Substitution substitution, StringBuilder out) {
+        Printer.print(value, out);
+    }
+}
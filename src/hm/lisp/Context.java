@@ -0,0 +1,46 @@
+package hm.lisp;
+
+import java.util.concurrent.ForkJoinPool;
+
+class Context {
+    private final Output output;
+    private final Profiler profiler;
+    private final Budget budget;
+
+    private Context(Output output, Profiler profiler, Budget budget) {
+        this.output = output;
+        this.profiler = profiler;
+        this.budget = budget;
+    }
+
+    static Context capture() {
+        Budget budget = Budget.current();
+        return new Context(Output.current(), Profiler.current(), budget == null ? null : budget.fork());
+    }
+
+    Object call(Object function, Object[] arguments) {
+        Output previousOutput = Output.redirect(output);
+        Profiler previousProfiler = profiler == null ? null : profiler.attach();
+        Budget previousBudget = budget == null ? null : budget.attach();
+        try {
+            return Closure.call(function, arguments);
+        } finally {
+            if (budget != null) {
+                budget.finish();
+                Budget.detach(previousBudget);
+            }
+            if (profiler != null)
+                Profiler.detach(previousProfiler);
+            Output.restore(previousOutput);
+        }
+    }
+
+    ForkJoinPool pool() {
+        return budget == null ? ForkJoinPool.commonPool() : budget.pool;
+    }
+
+    void cancel() {
+        if (budget != null)
+            budget.cancel();
+    }
+}
@@ -0,0 +1,26 @@
+package hm.lisp;
+
+class Define extends Node {
+    private final Global global;
+    private final Node definition;
+
+    Define(Global global, Node definition) {
+        this.global = global;
+        this.definition = definition;
+    }
+
+    Object eval(Scope scope) {
+        global.define(definition.eval(scope));
+        return null;
+    }
+
+    Node optimize() {
+        return new Define(global, definition.optimize());
+    }
+
+    void describe(Substitution substitution, StringBuilder out) {
+        out.append("(define ").append(global.name).append(' ');
+        definition.describe(substitution, out);
+        out.append(')');
+    }
+}
@@ -0,0 +1,19 @@
+package hm.lisp;
+
+class Delay extends Node {
+    private final Lambda thunk;
+
+    Delay(Lambda thunk) {
+        this.thunk = thunk;
+    }
+
+    Object eval(Scope scope) {
+        return new Promise(thunk.eval(scope));
+    }
+
+    void describe(Substitution substitution, StringBuilder out) {
+        out.append("(delay ");
+        thunk.body.describe(substitution.enter(), out);
+        out.append(')');
+    }
+}
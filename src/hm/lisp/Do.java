@@ -0,0 +1,27 @@
+package hm.lisp;
+
+import java.util.List;
+
+class Do extends Node {
+    private final List<Node> body;
+
+    Do(List<Node> body) {
+        this.body = body;
+    }
+
+    Object eval(Scope scope) {
+        Object result = null;
+        for (Node node : body)
+            result = node.eval(scope);
+        return result;
+    }
+
+    Node optimize() {
+        return new Do(optimizeAll(body));
+    }
+
+    void describe(Substitution substitution, StringBuilder out) {
+        out.append("(do");
+        describeAll(body, substitution, out);
+    }
+}
@@ -0,0 +1,7 @@
+package hm.lisp;
+
+public class EvaluationAbortedException extends RuntimeException {
+    EvaluationAbortedException(String message) {
+        super(message);
+    }
+}
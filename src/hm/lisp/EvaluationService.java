@@ -0,0 +1,99 @@
+package hm.lisp;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+public class EvaluationService implements AutoCloseable {
+    private final ExecutorService executor;
+    private final BlockingQueue<Interpreter> interpreters;
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder totalLatency = new LongAdder();
+    private final AtomicLong maximumLatency = new AtomicLong();
+
+    public EvaluationService(int threads, int capacity) {
+        this(threads, capacity, CompilationMode.TIERED);
+    }
+
+    public EvaluationService(int threads, int capacity, CompilationMode mode) {
+        executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                                          new ArrayBlockingQueue<>(capacity));
+        interpreters = new ArrayBlockingQueue<>(threads);
+        for (int i = 0; i < threads; i++)
+            interpreters.add(new Interpreter(mode));
+    }
+
+    public Future<String> submit(String program) {
+        long submittedAt = System.nanoTime();
+        submitted.increment();
+        try {
+            return executor.submit(() -> run(program, submittedAt));
+        } catch (RejectedExecutionException e) {
+            submitted.decrement();
+            throw e;
+        }
+    }
+
+    private String run(String program, long submittedAt) throws InterruptedException {
+        Interpreter interpreter = interpreters.take();
+        StringBuilder output = new StringBuilder();
+        boolean succeeded = false;
+        try {
+            interpreter.evaluate(program, output);
+            succeeded = true;
+            return output.toString();
+        } finally {
+            interpreter.cancel();
+            interpreter.reset();
+            interpreters.add(interpreter);
+            record(System.nanoTime() - submittedAt, succeeded);
+        }
+    }
+
+    private void record(long latency, boolean succeeded) {
+        (succeeded ? completed : failed).increment();
+        totalLatency.add(latency);
+        maximumLatency.accumulateAndGet(latency, Math::max);
+    }
+
+    public long submitted() {
+        return submitted.sum();
+    }
+
+    public long completed() {
+        return completed.sum();
+    }
+
+    public long failed() {
+        return failed.sum();
+    }
+
+    public long pending() {
+        return submitted() - completed() - failed();
+    }
+
+    public int idleInterpreters() {
+        return interpreters.size();
+    }
+
+    public double averageLatency(TimeUnit unit) {
+        long finished = completed() + failed();
+        return finished == 0 ? 0 : (double) totalLatency.sum() / finished / unit.toNanos(1);
+    }
+
+    public long maximumLatency(TimeUnit unit) {
+        return unit.convert(maximumLatency.get(), TimeUnit.NANOSECONDS);
+    }
+
+    public void close() {
+        executor.shutdown();
+    }
+}
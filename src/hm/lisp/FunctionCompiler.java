@@ -0,0 +1,271 @@
+package hm.lisp;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static hm.lisp.MethodAssembler.*;
+import static hm.lisp.ValueType.BOOLEAN;
+import static hm.lisp.ValueType.NUMBER;
+
+class FunctionCompiler {
+    private static final int ACC_PUBLIC = 0x0001;
+    private static final int ACC_STATIC = 0x0008;
+    private static final String RUN = "run";
+    private static final int MAXIMUM_PARAMETERS = 127;
+    private static final int MAXIMUM_CODE_SIZE = 32 * 1024;
+
+    private final BytecodeCompiler compiler;
+    private final Lambda lambda;
+    private final ValueType returns;
+    private final String descriptor;
+    private final ClassAssembler assembler;
+    private final MethodAssembler method;
+    private final Set<Global> dependencies = new HashSet<>();
+    private final int start;
+
+    FunctionCompiler(BytecodeCompiler compiler, Lambda lambda, String owner, ValueType returns) {
+        this.compiler = compiler;
+        this.lambda = lambda;
+        this.returns = returns;
+        this.descriptor = descriptor(lambda.parameters.size(), returns);
+        this.assembler = new ClassAssembler(owner);
+        this.method = assembler.method(ACC_PUBLIC | ACC_STATIC, RUN, descriptor, 2 * lambda.parameters.size());
+        this.start = method.label();
+        method.mark(start);
+    }
+
+    static boolean compilable(Lambda lambda) {
+        return lambda.parameters.size() <= MAXIMUM_PARAMETERS;
+    }
+
+    ValueType compileBody() {
+        ValueType type = compile(lambda.body);
+        if (method.size() > MAXIMUM_CODE_SIZE)
+            return null;
+        if (type == returns)
+            method.emit(returns == NUMBER ? DRETURN : IRETURN, -returns.size);
+        return type;
+    }
+
+    NativeCode load(NativeLoader loader) {
+        emitConstructor();
+        emitBridge();
+        byte[] bytes = assembler.assemble("java/lang/Object", "hm/lisp/CompiledFunction");
+        try {
+            Class<?> type = loader.define(assembler.name(), bytes);
+            CompiledFunction function = (CompiledFunction) type.getDeclaredConstructor().newInstance();
+            return new NativeCode(function, assembler.name(), descriptor, returns, dependencies);
+        } catch (ReflectiveOperationException e) {
+            throw new RuntimeException(e);
+        } catch (LinkageError e) {
+            return null;
+        }
+    }
+
+    ValueType compile(Node node) {
+        return node.compile(this);
+    }
+
+    ValueType number(double value) {
+        method.emitShort(LDC2_W, assembler.doubleConstant(value), 2);
+        return NUMBER;
+    }
+
+    ValueType local(int depth, int slot) {
+        if (depth != 0 || slot >= lambda.parameters.size())
+            return null;
+        method.emitByte(DLOAD, 2 * slot, 2);
+        return NUMBER;
+    }
+
+    ValueType branch(Node condition, Node consequent, Node alternative) {
+        if (compile(condition) != BOOLEAN)
+            return null;
+        int otherwise = method.label();
+        int end = method.label();
+        method.jump(IFEQ, otherwise, -1);
+        int stack = method.stack();
+        ValueType type = compile(consequent);
+        if (type == null)
+            return null;
+        method.jump(GOTO, end, 0);
+        method.stack(stack);
+        method.mark(otherwise);
+        if (compile(alternative) != type)
+            return null;
+        method.mark(end);
+        return type;
+    }
+
+    ValueType call(Global global, List<Node> arguments, boolean tail) {
+        if (!(global.value instanceof Closure))
+            return null;
+        Closure callee = (Closure) global.value;
+        int count = arguments.size();
+        if (callee.bound.length != 0 || callee.lambda.parameters.size() != count)
+            return null;
+        dependencies.add(global);
+
+        String primitive = callee.lambda.forwardedPrimitive();
+        if (primitive != null)
+            return primitive(primitive, arguments);
+        if (callee.lambda == lambda)
+            return tail ? loop(arguments) : invoke(assembler.name(), descriptor, returns, arguments);
+
+        NativeCode code = compiler.compile(callee.lambda);
+        if (code == null)
+            return null;
+        dependencies.addAll(code.dependencies);
+        return invoke(code.owner, code.descriptor, code.returns, arguments);
+    }
+
+    ValueType primitive(String name, List<Node> arguments) {
+        switch (name) {
+            case "+":
+                return arithmetic(DADD, arguments);
+            case "-":
+                return arithmetic(DSUB, arguments);
+            case "*":
+                return arithmetic(DMUL, arguments);
+            case "/":
+                return arithmetic(DDIV, arguments);
+            case "<":
+                return comparison(DCMPG, IFGE, arguments);
+            case "<=":
+                return comparison(DCMPG, IFGT, arguments);
+            case ">":
+                return comparison(DCMPL, IFLE, arguments);
+            case ">=":
+                return comparison(DCMPL, IFLT, arguments);
+            case "=":
+                return equality(arguments);
+            case "and":
+                return logical(IAND, arguments);
+            case "or":
+                return logical(IOR, arguments);
+            case "not":
+                return negation(arguments);
+            default:
+                return null;
+        }
+    }
+
+    private ValueType arithmetic(int opcode, List<Node> arguments) {
+        if (!operands(NUMBER, 2, arguments))
+            return null;
+        method.emit(opcode, -2);
+        return NUMBER;
+    }
+
+    private ValueType comparison(int opcode, int jumpIfFalse, List<Node> arguments) {
+        if (!operands(NUMBER, 2, arguments))
+            return null;
+        method.emit(opcode, -3);
+        return test(jumpIfFalse, 1);
+    }
+
+    private ValueType equality(List<Node> arguments) {
+        if (arguments.size() != 2)
+            return null;
+        ValueType type = compile(arguments.get(0));
+        if (type == null || compile(arguments.get(1)) != type)
+            return null;
+        if (type == BOOLEAN)
+            return test(IF_ICMPNE, 2);
+        method.emitShort(INVOKESTATIC, assembler.methodReference("java/lang/Double", "compare", "(DD)I"), -3);
+        return test(IFNE, 1);
+    }
+
+    private ValueType logical(int opcode, List<Node> arguments) {
+        if (!operands(BOOLEAN, 2, arguments))
+            return null;
+        method.emit(opcode, -1);
+        return BOOLEAN;
+    }
+
+    private ValueType negation(List<Node> arguments) {
+        if (!operands(BOOLEAN, 1, arguments))
+            return null;
+        method.emit(ICONST_1, 1);
+        method.emit(IXOR, -1);
+        return BOOLEAN;
+    }
+
+    private ValueType test(int jumpIfFalse, int consumed) {
+        int otherwise = method.label();
+        int end = method.label();
+        method.jump(jumpIfFalse, otherwise, -consumed);
+        method.emit(ICONST_1, 1);
+        method.jump(GOTO, end, 0);
+        method.stack(method.stack() - 1);
+        method.mark(otherwise);
+        method.emit(ICONST_0, 1);
+        method.mark(end);
+        return BOOLEAN;
+    }
+
+    private ValueType loop(List<Node> arguments) {
+        if (!operands(NUMBER, arguments.size(), arguments))
+            return null;
+        for (int i = arguments.size() - 1; i >= 0; i--)
+            method.emitByte(DSTORE, 2 * i, -2);
+        method.emitShort(INVOKESTATIC, assembler.methodReference("hm/lisp/Safepoint", "poll", "()V"), 0);
+        method.jump(GOTO, start, 0);
+        method.stack(method.stack() + returns.size);
+        return returns;
+    }
+
+    private ValueType invoke(String owner, String descriptor, ValueType type, List<Node> arguments) {
+        if (!operands(NUMBER, arguments.size(), arguments))
+            return null;
+        method.emitShort(INVOKESTATIC,
+                         assembler.methodReference(owner, RUN, descriptor),
+                         type.size - 2 * arguments.size());
+        return type;
+    }
+
+    private boolean operands(ValueType type, int count, List<Node> arguments) {
+        if (arguments.size() != count)
+            return false;
+        for (Node argument : arguments)
+            if (compile(argument) != type)
+                return false;
+        return true;
+    }
+
+    private void emitConstructor() {
+        MethodAssembler constructor = assembler.method(ACC_PUBLIC, "<init>", "()V", 1);
+        constructor.emit(ALOAD_0, 1);
+        constructor.emitShort(INVOKESPECIAL, assembler.methodReference("java/lang/Object", "<init>", "()V"), -1);
+        constructor.emit(RETURN, 0);
+    }
+
+    private void emitBridge() {
+        MethodAssembler bridge = assembler.method(ACC_PUBLIC, "invoke", "([Ljava/lang/Object;)Ljava/lang/Object;", 2);
+        int count = lambda.parameters.size();
+        for (int i = 0; i < count; i++) {
+            bridge.emit(ALOAD_1, 1);
+            bridge.emitByte(BIPUSH, i, 1);
+            bridge.emit(AALOAD, -1);
+            bridge.emitShort(CHECKCAST, assembler.classReference("java/lang/Double"), 0);
+            bridge.emitShort(INVOKEVIRTUAL, assembler.methodReference("java/lang/Double", "doubleValue", "()D"), 1);
+        }
+        bridge.emitShort(INVOKESTATIC, assembler.methodReference(assembler.name(), RUN, descriptor),
+                         returns.size - 2 * count);
+        if (returns == NUMBER)
+            bridge.emitShort(INVOKESTATIC,
+                             assembler.methodReference("java/lang/Double", "valueOf", "(D)Ljava/lang/Double;"), -1);
+        else
+            bridge.emitShort(INVOKESTATIC,
+                             assembler.methodReference("java/lang/Boolean", "valueOf", "(Z)Ljava/lang/Boolean;"), 0);
+        bridge.emit(ARETURN, -1);
+    }
+
+    private static String descriptor(int parameters, ValueType returns) {
+        StringBuilder builder = new StringBuilder("(");
+        for (int i = 0; i < parameters; i++)
+            builder.append(NUMBER.descriptor);
+        return builder.append(')').append(returns.descriptor).toString();
+    }
+}
@@ -0,0 +1,23 @@
+package hm.lisp;
+
+class FunctionProfile {
+    final String name;
+    long calls;
+    long totalTime;
+    long selfTime;
+    long allocated;
+    int maximumDepth;
+
+    FunctionProfile(String name) {
+        this.name = name;
+    }
+
+    synchronized void record(ProfileFrame frame, long elapsed, long self, long allocated) {
+        calls++;
+        if (frame.depth == 1)
+            totalTime += elapsed;
+        selfTime += self;
+        this.allocated += allocated;
+        maximumDepth = Math.max(maximumDepth, frame.depth);
+    }
+}
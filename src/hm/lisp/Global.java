@@ -0,0 +1,20 @@
+package hm.lisp;
+
+import java.io.Serializable;
+
+class Global implements Serializable {
+    final Symbol name;
+    transient Environment environment;
+    volatile Object value;
+
+    Global(Symbol name, Environment environment, Object value) {
+        this.name = name;
+        this.environment = environment;
+        this.value = value;
+    }
+
+    void define(Object value) {
+        this.value = value;
+        environment.defined(this);
+    }
+}
@@ -0,0 +1,21 @@
+package hm.lisp;
+
+class GlobalRef extends Node {
+    final Global global;
+
+    GlobalRef(Global global) {
+        this.global = global;
+    }
+
+    Object eval(Scope scope) {
+        return global.value;
+    }
+
+    boolean inlinable() {
+        return true;
+    }
+
+    void describe(Substitution substitution, StringBuilder out) {
+        out.append(global.name);
+    }
+}
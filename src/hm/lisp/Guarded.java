@@ -0,0 +1,77 @@
+package hm.lisp;
+
+import java.util.List;
+
+class Guarded extends Node {
+    final Global global;
+    final Object expected;
+    final Node fast;
+    private final Node slow;
+
+    Guarded(Global global, Object expected, Node fast, Node slow) {
+        this.global = global;
+        this.expected = expected;
+        this.fast = fast;
+        this.slow = slow;
+    }
+
+    static boolean constant(Node node) {
+        return node instanceof Constant || (node instanceof Guarded && constant(((Guarded) node).fast));
+    }
+
+    static Object value(Node node) {
+        return node instanceof Guarded ? value(((Guarded) node).fast) : ((Constant) node).value;
+    }
+
+    static Node guard(List<Node> assumptions, Node fast, Node slow) {
+        for (Node assumption : assumptions)
+            for (Node node = assumption; node instanceof Guarded; node = ((Guarded) node).fast) {
+                Guarded guarded = (Guarded) node;
+                if (!covered(fast, guarded))
+                    fast = new Guarded(guarded.global, guarded.expected, fast, slow);
+            }
+        return fast;
+    }
+
+    private static boolean covered(Node node, Guarded guard) {
+        for (; node instanceof Guarded; node = ((Guarded) node).fast)
+            if (((Guarded) node).global == guard.global && ((Guarded) node).expected == guard.expected)
+                return true;
+        return false;
+    }
+
+    boolean inlinable() {
+        return fast.inlinable();
+    }
+
+    Node inline(Node[] arguments) {
+        return fast.inline(arguments);
+    }
+
+    void guards(List<Node> guards) {
+        guards.add(this);
+        fast.guards(guards);
+    }
+
+    Object eval(Scope scope) {
+        return global.value == expected ? fast.eval(scope) : slow.eval(scope);
+    }
+
+    double evalNumber(Scope scope) {
+        return global.value == expected ? fast.evalNumber(scope) : slow.evalNumber(scope);
+    }
+
+    boolean evalBoolean(Scope scope) {
+        return global.value == expected ? fast.evalBoolean(scope) : slow.evalBoolean(scope);
+    }
+
+    ValueType compile(FunctionCompiler compiler) {
+        return slow.compile(compiler);
+    }
+
+    void describe(Substitution substitution, StringBuilder out) {
+        out.append("(guard ").append(global.name).append(' ');
+        fast.describe(substitution, out);
+        out.append(')');
+    }
+}
@@ -0,0 +1,43 @@
+package hm.lisp;
+
+import java.util.Collections;
+
+class If extends Node {
+    private final Node condition;
+    private final Node consequent;
+    private final Node alternative;
+
+    If(Node condition, Node consequent, Node alternative) {
+        this.condition = condition;
+        this.consequent = consequent;
+        this.alternative = alternative;
+    }
+
+    Object eval(Scope scope) {
+        return condition.evalBoolean(scope) ? consequent.eval(scope) : alternative.eval(scope);
+    }
+
+    Node optimize() {
+        If optimized = new If(condition.optimize(), consequent.optimize(), alternative.optimize());
+        Node condition = optimized.condition;
+        if (Guarded.constant(condition) && Guarded.value(condition) instanceof Boolean) {
+            Node branch = (boolean) Guarded.value(condition) ? optimized.consequent : optimized.alternative;
+            return Guarded.guard(Collections.singletonList(condition), branch, optimized);
+        }
+        return optimized;
+    }
+
+    ValueType compile(FunctionCompiler compiler) {
+        return compiler.branch(condition, consequent, alternative);
+    }
+
+    void describe(Substitution substitution, StringBuilder out) {
+        out.append("(if ");
+        condition.describe(substitution, out);
+        out.append(' ');
+        consequent.describe(substitution, out);
+        out.append(' ');
+        alternative.describe(substitution, out);
+        out.append(')');
+    }
+}
@@ -0,0 +1,30 @@
+package hm.lisp;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+class Image {
+    static void save(Environment environment, OutputStream output) throws IOException {
+        GZIPOutputStream compressed = new GZIPOutputStream(output);
+        ObjectOutputStream stream = new ObjectOutputStream(compressed);
+        stream.writeObject(environment.snapshot());
+        stream.flush();
+        compressed.finish();
+    }
+
+    static Environment load(InputStream input, CompilationMode mode) throws IOException {
+        Environment environment = new Environment(mode);
+        ImageInputStream stream = new ImageInputStream(new GZIPInputStream(input), environment);
+        try {
+            environment.adopt((Map<Symbol, Global>) stream.readObject());
+        } catch (ClassNotFoundException e) {
+            throw new IOException(e);
+        }
+        return environment;
+    }
+}
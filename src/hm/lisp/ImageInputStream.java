@@ -0,0 +1,58 @@
+package hm.lisp;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.ObjectInputStream;
+import java.io.ObjectStreamClass;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+class ImageInputStream extends ObjectInputStream {
+    private static final String PACKAGE = "hm.lisp.";
+    private static final Set<String> ALLOWED = new HashSet<>(Arrays.asList(
+        "java.lang.Object",
+        "java.lang.Number",
+        "java.lang.Double",
+        "java.lang.Boolean",
+        "java.lang.String",
+        "java.util.ArrayList",
+        "java.util.Arrays$ArrayList",
+        "java.util.Collections$EmptyList",
+        "java.util.HashMap",
+        "java.util.LinkedHashMap"
+    ));
+
+    private final Environment environment;
+
+    ImageInputStream(InputStream input, Environment environment) throws IOException {
+        super(input);
+        this.environment = environment;
+        enableResolveObject(true);
+    }
+
+    protected Class<?> resolveClass(ObjectStreamClass description) throws IOException, ClassNotFoundException {
+        if (!allowed(description.getName()))
+            throw new InvalidClassException(description.getName(), "not allowed in an image");
+        return super.resolveClass(description);
+    }
+
+    private static boolean allowed(String name) {
+        if (name.startsWith("[")) {
+            String element = name.substring(name.lastIndexOf('[') + 1);
+            return element.length() == 1 || allowed(element.substring(1, element.length() - 1));
+        }
+        if (ALLOWED.contains(name))
+            return true;
+        return name.startsWith(PACKAGE) && name.indexOf('.', PACKAGE.length()) < 0 && name.indexOf('$') < 0;
+    }
+
+    protected Object resolveObject(Object object) {
+        if (object instanceof Global)
+            ((Global) object).environment = environment;
+        else if (object instanceof Lambda)
+            ((Lambda) object).owner = environment.compiler;
+        return object;
+    }
+}
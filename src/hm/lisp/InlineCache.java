@@ -0,0 +1,46 @@
+package hm.lisp;
+
+class InlineCache {
+    private static final int RELINK_LIMIT = 8;
+    static final InlineCache MEGAMORPHIC = new InlineCache(new Object(), false, null, RELINK_LIMIT);
+
+    private final Object key;
+    private final boolean unbound;
+    final Primitive primitive;
+    private final int links;
+
+    private InlineCache(Object key, boolean unbound, Primitive primitive, int links) {
+        this.key = key;
+        this.unbound = unbound;
+        this.primitive = primitive;
+        this.links = links;
+    }
+
+    boolean matches(Object function) {
+        if (function instanceof Closure) {
+            Closure closure = (Closure) function;
+            return closure.lambda == key && (closure.bound.length == 0) == unbound;
+        }
+        return function == key || (key == null && !(function instanceof Primitive));
+    }
+
+    static InlineCache link(InlineCache previous, Object function, int arity) {
+        int links = previous == null ? 1 : previous.links + 1;
+        if (links > RELINK_LIMIT)
+            return MEGAMORPHIC;
+        if (function instanceof Primitive)
+            return new InlineCache(function, false, (Primitive) function, links);
+        if (!(function instanceof Closure))
+            return new InlineCache(null, false, null, links);
+        Closure closure = (Closure) function;
+        boolean unbound = closure.bound.length == 0;
+        return new InlineCache(closure.lambda, unbound, unbound ? target(closure.lambda, arity) : null, links);
+    }
+
+    private static Primitive target(Lambda lambda, int arity) {
+        if (lambda.parameters.size() != arity)
+            return null;
+        String primitive = lambda.forwardedPrimitive();
+        return primitive == null ? null : Primitives.get(primitive);
+    }
+}
@@ -0,0 +1,74 @@
+package hm.lisp;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+class Instrumentation {
+    private static final ThreadLocal<Instrumentation> CURRENT = ThreadLocal.withInitial(Instrumentation::new);
+    private static final AtomicInteger ACTIVE = new AtomicInteger();
+
+    private Budget budget;
+    private Profiler profiler;
+    private boolean instrumented;
+
+    static Instrumentation current() {
+        return CURRENT.get();
+    }
+
+    static boolean active() {
+        return ACTIVE.get() != 0 && CURRENT.get().watched();
+    }
+
+    static void activated() {
+        ACTIVE.incrementAndGet();
+    }
+
+    static void deactivated() {
+        ACTIVE.decrementAndGet();
+    }
+
+    boolean instrumented() {
+        return instrumented;
+    }
+
+    private boolean watched() {
+        return instrumented || (budget != null && budget.cancelled());
+    }
+
+    Budget budget() {
+        return budget;
+    }
+
+    Profiler profiler() {
+        return profiler;
+    }
+
+    Budget attach(Budget budget) {
+        Budget previous = this.budget;
+        this.budget = budget;
+        update();
+        return previous;
+    }
+
+    Profiler attach(Profiler profiler) {
+        Profiler previous = this.profiler;
+        this.profiler = profiler;
+        update();
+        return previous;
+    }
+
+    void poll() {
+        if (budget != null)
+            budget.poll();
+    }
+
+    private void update() {
+        boolean instrumented = profiler != null || (budget != null && budget.limited);
+        if (instrumented != this.instrumented) {
+            this.instrumented = instrumented;
+            if (instrumented)
+                activated();
+            else
+                deactivated();
+        }
+    }
+}
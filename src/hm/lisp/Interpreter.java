@@ -1,35 +1,213 @@
 package hm.lisp;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
 public class Interpreter {
-    private Environment environment = new Environment();
-    private Parser parser = new Parser(environment);
+    private final CompilationMode mode;
+    private final Appendable output;
+    private volatile Environment environment;
+    private volatile int memoCapacity = Memoization.DEFAULT_CAPACITY;
+    private volatile Limits limits = Limits.NONE;
+    private volatile boolean optimizing;
+    private final Set<Budget> budgets = ConcurrentHashMap.newKeySet();
+    private final ForkJoinPool pool = new ForkJoinPool();
 
     public Interpreter() {
-        loadStandardLibrary();
+        this(CompilationMode.INTERPRETED);
+    }
+
+    public Interpreter(CompilationMode mode) {
+        this(mode, (Appendable) null);
+    }
+
+    public Interpreter(Appendable output) {
+        this(CompilationMode.INTERPRETED, output);
+    }
+
+    public Interpreter(CompilationMode mode, Appendable output) {
+        this(mode, new Environment(mode, StandardLibrary.environment()), output);
+    }
+
+    private Interpreter(CompilationMode mode, Environment environment, Appendable output) {
+        this.mode = mode;
+        this.environment = environment;
+        this.output = output;
+    }
+
+    public static Interpreter loadImage(Path file) throws IOException {
+        return loadImage(file, CompilationMode.INTERPRETED);
+    }
+
+    public static Interpreter loadImage(Path file, CompilationMode mode) throws IOException {
+        try (InputStream input = Files.newInputStream(file)) {
+            return new Interpreter(mode, Image.load(input, mode), null);
+        }
+    }
+
+    public void saveImage(Path file) throws IOException {
+        ByteArrayOutputStream image = new ByteArrayOutputStream();
+        Image.save(environment, image);
+        try (OutputStream output = Files.newOutputStream(file)) {
+            image.writeTo(output);
+        }
+    }
+
+    public void reset() {
+        Environment environment = new Environment(mode, StandardLibrary.environment());
+        environment.memoization.capacity = memoCapacity;
+        environment.optimizing = optimizing;
+        this.environment = environment;
+    }
+
+    public void setMemoCapacity(int capacity) {
+        memoCapacity = capacity;
+        environment.memoization.capacity = capacity;
+    }
+
+    public void setOptimizing(boolean enabled) {
+        optimizing = enabled;
+        environment.optimizing = enabled;
+    }
+
+    public String optimize(String code) {
+        Environment scratch = new Environment(CompilationMode.INTERPRETED, environment);
+        StringBuilder forms = new StringBuilder();
+        try {
+            evaluate(new StringReader(code), null, new StringBuilder(), scratch, true, forms);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return forms.toString();
+    }
+
+    public void setLimits(Limits limits) {
+        this.limits = limits;
+    }
+
+    public void cancel() {
+        for (Budget budget : budgets)
+            budget.cancel();
+    }
+
+    public void setProfiling(boolean enabled) {
+        environment.profiler = enabled ? new Profiler() : null;
+    }
+
+    public String profileReport() {
+        return profiler().report();
+    }
+
+    public String collapsedStacks() {
+        return profiler().collapsedStacks();
+    }
+
+    private Profiler profiler() {
+        Profiler profiler = environment.profiler;
+        if (profiler == null)
+            throw new RuntimeException("Profiling is not enabled");
+        return profiler;
+    }
+
+    public long memoHits() {
+        return environment.memoization.hits.sum();
+    }
+
+    public long memoMisses() {
+        return environment.memoization.misses.sum();
     }
 
     public void evaluate(String code) {
-        parser.parse(code);
-    }
-
-    private void loadStandardLibrary() {
-        evaluate("(define (+ x y) (<primitive>+ x y))");
-        evaluate("(define (- x y) (<primitive>- x y))");
-        evaluate("(define (* x y) (<primitive>* x y))");
-        evaluate("(define (/ x y) (<primitive>/ x y))");
-        evaluate("(define (= x y) (<primitive>= x y))");
-        evaluate("(define (not x) (<primitive>not x))");
-        evaluate("(define (> x y) (<primitive>> x y))");
-        evaluate("(define (< x y) (<primitive>< x y))");
-        evaluate("(define (>= x y) (<primitive>>= x y))");
-        evaluate("(define (<= x y) (<primitive><= x y))");
-        evaluate("(define (or x y) (<primitive>or x y))");
-        evaluate("(define (and x y) (<primitive>and x y))");
-        evaluate("(define (print x) (<primitive>print x))");
-        evaluate("(define increment (+ 1))");
-        evaluate("(define (decrement y) (<primitive>- y 1))");
-        evaluate("(define pair (lambda (x y) (lambda (z) (if (= z 0) x y))))");
-        evaluate("(define left (lambda (pair) (pair 0)))");
-        evaluate("(define right (lambda (pair) (pair 1)))");
+        evaluate(code, sink());
+    }
+
+    public void evaluate(String code, Appendable output) {
+        try {
+            evaluate(new StringReader(code), code, output);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void evaluate(Path file) throws IOException {
+        try (Reader reader = Files.newBufferedReader(file, UTF_8)) {
+            evaluate(reader);
+        }
+    }
+
+    public void evaluate(Reader reader) throws IOException {
+        evaluate(reader, sink());
+    }
+
+    public void evaluate(Reader reader, Appendable sink) throws IOException {
+        evaluate(reader, null, sink);
+    }
+
+    private void evaluate(Reader reader, String source, Appendable sink) throws IOException {
+        Environment environment = this.environment;
+        evaluate(reader, source, sink, environment, environment.optimizing, null);
+    }
+
+    private void evaluate(Reader reader, String source, Appendable sink, Environment environment, boolean optimizing,
+                          StringBuilder forms) throws IOException {
+        Profiler profiler = environment.profiler;
+        Profiler previousProfiler = profiler == null ? null : profiler.attach();
+        Budget budget = new Budget(limits, pool, budgets);
+        Budget previousBudget = budget.attach();
+        Output output = new Output(sink);
+        Output previous = Output.redirect(output);
+        try {
+            List<Program> programs = source == null ? null : environment.cached(source, optimizing);
+            if (programs != null) {
+                for (Program program : programs)
+                    execute(environment, program);
+                return;
+            }
+            programs = source == null ? null : new ArrayList<>();
+            Parser parser = new Parser(reader);
+            for (Object form = parser.next(); form != Parser.END; form = parser.next()) {
+                Program program = environment.analyze(form, optimizing);
+                if (forms != null)
+                    forms.append(program).append('\n');
+                if (programs != null)
+                    programs.add(program);
+                execute(environment, program);
+            }
+            if (programs != null)
+                environment.cache(source, optimizing, programs);
+        } catch (StackOverflowError e) {
+            throw new EvaluationAbortedException("Stack overflow");
+        } finally {
+            Output.restore(previous);
+            output.close();
+            if (profiler != null)
+                Profiler.detach(previousProfiler);
+            budget.finish();
+            Budget.detach(previousBudget);
+        }
+    }
+
+    private Appendable sink() {
+        return output == null ? System.out : output;
+    }
+
+    private void execute(Environment environment, Program program) {
+        Object value = program.run();
+        if (program.echo)
+            environment.print(value);
     }
 }
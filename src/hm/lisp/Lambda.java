@@ -0,0 +1,58 @@
+package hm.lisp;
+
+import java.util.List;
+
+class Lambda extends Node {
+    final List<Symbol> parameters;
+    final int frameSize;
+    final Node body;
+    String name;
+    private Node source;
+    transient volatile NativeCode code;
+    transient volatile BytecodeCompiler compiler;
+    transient BytecodeCompiler owner;
+    transient int countdown;
+
+    Lambda(List<Symbol> parameters, int frameSize, Node body) {
+        this.parameters = parameters;
+        this.frameSize = frameSize;
+        this.body = body;
+    }
+
+    Object eval(Scope scope) {
+        return new Closure(this, scope);
+    }
+
+    Node optimize() {
+        Node optimized = body.optimize();
+        if (optimized == body)
+            return this;
+        Lambda lambda = new Lambda(parameters, frameSize, optimized);
+        lambda.name = name;
+        lambda.owner = owner;
+        lambda.source = source == null ? body : source;
+        return lambda;
+    }
+
+    String name() {
+        return name == null ? "lambda" : name;
+    }
+
+    String forwardedPrimitive() {
+        if (body instanceof PrimitiveCall && ((PrimitiveCall) body).forwards(parameters.size()))
+            return ((PrimitiveCall) body).primitive.name;
+        return null;
+    }
+
+    void describe(Substitution substitution, StringBuilder out) {
+        describe(substitution.enter(), 0, out);
+    }
+
+    void describe(Substitution substitution, int bound, StringBuilder out) {
+        out.append("(lambda ");
+        render(parameters.subList(bound, parameters.size()), out);
+        out.append(' ');
+        (substitution.source && source != null ? source : body).describe(substitution, out);
+        out.append(')');
+    }
+}
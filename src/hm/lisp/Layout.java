@@ -0,0 +1,51 @@
+package hm.lisp;
+
+import java.util.ArrayList;
+import java.util.List;
+
+class Layout {
+    private static final int VISIBLE = 0;
+    private static final int PENDING = 1;
+    private static final int HIDDEN = 2;
+
+    final Layout parent;
+    private final List<Symbol> names = new ArrayList<>();
+    private final List<Integer> states = new ArrayList<>();
+
+    Layout(Layout parent) {
+        this.parent = parent;
+    }
+
+    int declare(Symbol name) {
+        names.add(name);
+        states.add(VISIBLE);
+        return names.size() - 1;
+    }
+
+    int reserve(Symbol name) {
+        names.add(name);
+        states.add(PENDING);
+        return names.size() - 1;
+    }
+
+    void reveal(int slot) {
+        states.set(slot, VISIBLE);
+    }
+
+    void hide(int slot) {
+        states.set(slot, HIDDEN);
+    }
+
+    int find(Symbol name, boolean deferred) {
+        for (int slot = names.size() - 1; slot >= 0; slot--) {
+            int state = states.get(slot);
+            if (names.get(slot) == name && (state == VISIBLE || (state == PENDING && deferred)))
+                return slot;
+        }
+        return -1;
+    }
+
+    int size() {
+        return names.size();
+    }
+}
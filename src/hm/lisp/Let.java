@@ -0,0 +1,41 @@
+package hm.lisp;
+
+import java.util.List;
+
+class Let extends Node {
+    private final List<Symbol> names;
+    private final int[] slots;
+    private final List<Node> definitions;
+    private final Node body;
+
+    Let(List<Symbol> names, int[] slots, List<Node> definitions, Node body) {
+        this.names = names;
+        this.slots = slots;
+        this.definitions = definitions;
+        this.body = body;
+    }
+
+    Object eval(Scope scope) {
+        for (int i = 0; i < slots.length; i++)
+            scope.slots[slots[i]] = definitions.get(i).eval(scope);
+        return body.eval(scope);
+    }
+
+    Node optimize() {
+        return new Let(names, slots, optimizeAll(definitions), body.optimize());
+    }
+
+    void describe(Substitution substitution, StringBuilder out) {
+        out.append("(let (");
+        for (int i = 0; i < names.size(); i++) {
+            if (i > 0)
+                out.append(' ');
+            out.append('(').append(names.get(i)).append(' ');
+            definitions.get(i).describe(substitution, out);
+            out.append(')');
+        }
+        out.append(") ");
+        body.describe(substitution, out);
+        out.append(')');
+    }
+}
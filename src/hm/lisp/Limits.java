@@ -0,0 +1,35 @@
+package hm.lisp;
+
+import java.util.concurrent.TimeUnit;
+
+public class Limits {
+    public static final Limits NONE = new Limits(0, 0, 0, 0);
+
+    final long steps;
+    final int depth;
+    final long timeout;
+    final long cells;
+
+    private Limits(long steps, int depth, long timeout, long cells) {
+        this.steps = steps;
+        this.depth = depth;
+        this.timeout = timeout;
+        this.cells = cells;
+    }
+
+    public Limits steps(long steps) {
+        return new Limits(steps, depth, timeout, cells);
+    }
+
+    public Limits depth(int depth) {
+        return new Limits(steps, depth, timeout, cells);
+    }
+
+    public Limits timeout(long amount, TimeUnit unit) {
+        return new Limits(steps, depth, unit.toNanos(amount), cells);
+    }
+
+    public Limits cells(long cells) {
+        return new Limits(steps, depth, timeout, cells);
+    }
+}
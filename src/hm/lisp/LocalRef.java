@@ -0,0 +1,43 @@
+package hm.lisp;
+
+class LocalRef extends Node {
+    private final Symbol name;
+    private final int depth;
+    private final int slot;
+
+    LocalRef(Symbol name, int depth, int slot) {
+        this.name = name;
+        this.depth = depth;
+        this.slot = slot;
+    }
+
+    Object eval(Scope scope) {
+        for (int i = 0; i < depth; i++)
+            scope = scope.parent;
+        return scope.slots[slot];
+    }
+
+    ValueType compile(FunctionCompiler compiler) {
+        return compiler.local(depth, slot);
+    }
+
+    boolean refersTo(int depth, int slot) {
+        return this.depth == depth && this.slot == slot;
+    }
+
+    boolean inlinable() {
+        return depth == 0;
+    }
+
+    Node inline(Node[] arguments) {
+        return arguments[slot];
+    }
+
+    void describe(Substitution substitution, StringBuilder out) {
+        Object value = substitution.lookup(depth, slot);
+        if (value == null)
+            out.append(name);
+        else
+            Printer.print(value, out);
+    }
+}
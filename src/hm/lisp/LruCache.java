@@ -0,0 +1,27 @@
+package hm.lisp;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+class LruCache<K, V> extends LinkedHashMap<K, V> {
+    int capacity;
+
+    LruCache(int capacity) {
+        super(16, 0.75f, true);
+        this.capacity = capacity;
+    }
+
+    void resize(int capacity) {
+        this.capacity = capacity;
+        Iterator<K> keys = keySet().iterator();
+        while (size() > capacity) {
+            keys.next();
+            keys.remove();
+        }
+    }
+
+    protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+        return size() > capacity;
+    }
+}
@@ -1,10 +1,16 @@
 package hm.lisp;
 
 import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.Scanner;
 
+import static java.lang.String.format;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
 public class Main {
-    public static void main(String[] arguments) throws InterruptedException {
+    public static void main(String[] arguments) throws InterruptedException, IOException {
         if (arguments.length == 0 || arguments.length > 2) {
             warnInvalidOptions();
         } else {
@@ -16,7 +22,16 @@ public class Main {
                     REPL();
                     break;
                 case "run":
-                    run(arguments[1]);
+                    if (arguments.length == 2)
+                        run(arguments[1]);
+                    else
+                        warnInvalidOptions();
+                    break;
+                case "optimize":
+                    if (arguments.length == 2)
+                        optimize(arguments[1]);
+                    else
+                        warnInvalidOptions();
                     break;
                 default:
                     warnInvalidOptions();
@@ -24,8 +39,23 @@ public class Main {
         }
     }
 
-    private static void run(String file) {
+    private static void run(String file) throws IOException {
+        long start = System.nanoTime();
+        Interpreter interpreter = new Interpreter();
+        long loaded = System.nanoTime();
+        try (MappedSourceReader reader = MappedSourceReader.open(Paths.get(file))) {
+            interpreter.evaluate(reader);
+        }
+        long finished = System.nanoTime();
+        System.out.flush();
+        System.err.println(format("\nstartup: %.3f ms, evaluation: %.3f ms",
+                                  (loaded - start) / 1e6,
+                                  (finished - loaded) / 1e6));
+    }
 
+    private static void optimize(String file) throws IOException {
+        String source = new String(Files.readAllBytes(Paths.get(file)), UTF_8);
+        System.out.print(new Interpreter().optimize(source));
     }
 
     private static void REPL() throws InterruptedException {
@@ -49,6 +79,7 @@ public class Main {
     private static void printHelp() {
         System.out.println("repl : Start the REPL");
         System.out.println("run <path/to/file> : Runs the specified file");
+        System.out.println("optimize <path/to/file> : Prints the optimized form of the specified file");
     }
 
     private static void warnInvalidOptions() {
@@ -0,0 +1,70 @@
+package hm.lisp;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.file.Path;
+
+import static java.lang.String.format;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardOpenOption.READ;
+
+class MappedSourceReader extends Reader {
+    private static final int BUFFER_SIZE = 8192;
+
+    private final FileChannel channel;
+    private final ByteBuffer bytes;
+    private final CharsetDecoder decoder = UTF_8.newDecoder();
+    private final CharBuffer chars = CharBuffer.allocate(BUFFER_SIZE);
+    private boolean finished;
+
+    private MappedSourceReader(FileChannel channel, ByteBuffer bytes) {
+        this.channel = channel;
+        this.bytes = bytes;
+        chars.flip();
+    }
+
+    static MappedSourceReader open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, READ);
+        try {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE)
+                throw new IOException(format("%s is too large to map", file));
+            return new MappedSourceReader(channel, channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public int read(char[] target, int offset, int length) throws IOException {
+        if (length == 0)
+            return 0;
+        if (!chars.hasRemaining() && !decode())
+            return -1;
+        int count = Math.min(length, chars.remaining());
+        chars.get(target, offset, count);
+        return count;
+    }
+
+    private boolean decode() throws IOException {
+        chars.clear();
+        while (chars.position() == 0 && !finished) {
+            CoderResult result = decoder.decode(bytes, chars, true);
+            if (result.isError())
+                result.throwException();
+            if (result.isUnderflow() && decoder.flush(chars).isUnderflow())
+                finished = true;
+        }
+        chars.flip();
+        return chars.hasRemaining();
+    }
+
+    public void close() throws IOException {
+        channel.close();
+    }
+}
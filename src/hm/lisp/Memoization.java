@@ -0,0 +1,11 @@
+package hm.lisp;
+
+import java.util.concurrent.atomic.LongAdder;
+
+class Memoization {
+    static final int DEFAULT_CAPACITY = 10000;
+
+    volatile int capacity = DEFAULT_CAPACITY;
+    final LongAdder hits = new LongAdder();
+    final LongAdder misses = new LongAdder();
+}
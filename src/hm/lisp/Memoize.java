@@ -0,0 +1,19 @@
+package hm.lisp;
+
+class Memoize extends Node {
+    private final Lambda lambda;
+    private final Global global;
+
+    Memoize(Lambda lambda, Global global) {
+        this.lambda = lambda;
+        this.global = global;
+    }
+
+    Object eval(Scope scope) {
+        return new Memoized((Closure) lambda.eval(scope), global);
+    }
+
+    void describe(Substitution substitution, StringBuilder out) {
+        lambda.describe(substitution, out);
+    }
+}
@@ -0,0 +1,42 @@
+package hm.lisp;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.List;
+
+class Memoized implements Serializable {
+    final Closure closure;
+    private final Global global;
+    private final LruCache<List<Object>, Object> cache;
+
+    Memoized(Closure closure, Global global) {
+        this.closure = closure;
+        this.global = global;
+        this.cache = new LruCache<>(global.environment.memoization.capacity);
+    }
+
+    Object call(Object[] arguments) {
+        Memoization memoization = global.environment.memoization;
+        List<Object> key = Arrays.asList(arguments.clone());
+        Object value;
+        synchronized (cache) {
+            if (cache.capacity != memoization.capacity)
+                cache.resize(memoization.capacity);
+            value = cache.get(key);
+        }
+        if (value != null) {
+            memoization.hits.increment();
+            return value;
+        }
+        memoization.misses.increment();
+        value = Closure.call(closure, arguments);
+        synchronized (cache) {
+            cache.put(key, value);
+        }
+        return value;
+    }
+
+    public String toString() {
+        return closure.toString();
+    }
+}
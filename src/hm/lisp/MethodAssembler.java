@@ -0,0 +1,134 @@
+package hm.lisp;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+class MethodAssembler {
+    static final int ICONST_0 = 0x03;
+    static final int ICONST_1 = 0x04;
+    static final int BIPUSH = 0x10;
+    static final int LDC2_W = 0x14;
+    static final int DLOAD = 0x18;
+    static final int ALOAD_0 = 0x2a;
+    static final int ALOAD_1 = 0x2b;
+    static final int AALOAD = 0x32;
+    static final int DSTORE = 0x39;
+    static final int DADD = 0x63;
+    static final int DSUB = 0x67;
+    static final int DMUL = 0x6b;
+    static final int DDIV = 0x6f;
+    static final int IAND = 0x7e;
+    static final int IOR = 0x80;
+    static final int IXOR = 0x82;
+    static final int DCMPL = 0x97;
+    static final int DCMPG = 0x98;
+    static final int IFEQ = 0x99;
+    static final int IFNE = 0x9a;
+    static final int IFLT = 0x9b;
+    static final int IFGE = 0x9c;
+    static final int IFGT = 0x9d;
+    static final int IFLE = 0x9e;
+    static final int IF_ICMPNE = 0xa0;
+    static final int GOTO = 0xa7;
+    static final int IRETURN = 0xac;
+    static final int DRETURN = 0xaf;
+    static final int ARETURN = 0xb0;
+    static final int RETURN = 0xb1;
+    static final int INVOKEVIRTUAL = 0xb6;
+    static final int INVOKESPECIAL = 0xb7;
+    static final int INVOKESTATIC = 0xb8;
+    static final int CHECKCAST = 0xc0;
+
+    private final int access;
+    private final int name;
+    private final int descriptor;
+    private final int maxLocals;
+    private final ByteArrayOutputStream code = new ByteArrayOutputStream();
+    private final List<Integer> labels = new ArrayList<>();
+    private final List<int[]> jumps = new ArrayList<>();
+    private int stack;
+    private int maxStack;
+
+    MethodAssembler(int access, int name, int descriptor, int maxLocals) {
+        this.access = access;
+        this.name = name;
+        this.descriptor = descriptor;
+        this.maxLocals = maxLocals;
+    }
+
+    void emit(int opcode, int stackChange) {
+        code.write(opcode);
+        adjust(stackChange);
+    }
+
+    void emitByte(int opcode, int operand, int stackChange) {
+        code.write(opcode);
+        code.write(operand);
+        adjust(stackChange);
+    }
+
+    void emitShort(int opcode, int operand, int stackChange) {
+        code.write(opcode);
+        code.write(operand >> 8);
+        code.write(operand);
+        adjust(stackChange);
+    }
+
+    int size() {
+        return code.size();
+    }
+
+    int label() {
+        labels.add(-1);
+        return labels.size() - 1;
+    }
+
+    void mark(int label) {
+        labels.set(label, code.size());
+    }
+
+    void jump(int opcode, int label, int stackChange) {
+        jumps.add(new int[]{code.size(), label});
+        emitShort(opcode, 0, stackChange);
+    }
+
+    int stack() {
+        return stack;
+    }
+
+    void stack(int stack) {
+        this.stack = stack;
+    }
+
+    byte[] assemble(int codeAttribute) throws IOException {
+        byte[] instructions = code.toByteArray();
+        for (int[] jump : jumps) {
+            int offset = labels.get(jump[1]) - jump[0];
+            instructions[jump[0] + 1] = (byte) (offset >> 8);
+            instructions[jump[0] + 2] = (byte) offset;
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeShort(access);
+        out.writeShort(name);
+        out.writeShort(descriptor);
+        out.writeShort(1);
+        out.writeShort(codeAttribute);
+        out.writeInt(12 + instructions.length);
+        out.writeShort(maxStack);
+        out.writeShort(maxLocals);
+        out.writeInt(instructions.length);
+        out.write(instructions);
+        out.writeShort(0);
+        out.writeShort(0);
+        return bytes.toByteArray();
+    }
+
+    private void adjust(int stackChange) {
+        stack += stackChange;
+        maxStack = Math.max(maxStack, stack);
+    }
+}
@@ -0,0 +1,26 @@
+package hm.lisp;
+
+import java.util.Set;
+
+class NativeCode {
+    final CompiledFunction function;
+    final String owner;
+    final String descriptor;
+    final ValueType returns;
+    final Set<Global> dependencies;
+
+    NativeCode(CompiledFunction function, String owner, String descriptor, ValueType returns, Set<Global> dependencies) {
+        this.function = function;
+        this.owner = owner;
+        this.descriptor = descriptor;
+        this.returns = returns;
+        this.dependencies = dependencies;
+    }
+
+    boolean accepts(Object[] arguments) {
+        for (Object argument : arguments)
+            if (!(argument instanceof Double))
+                return false;
+        return true;
+    }
+}
@@ -0,0 +1,11 @@
+package hm.lisp;
+
+class NativeLoader extends ClassLoader {
+    NativeLoader() {
+        super(NativeLoader.class.getClassLoader());
+    }
+
+    Class<?> define(String internalName, byte[] bytes) {
+        return defineClass(internalName.replace('/', '.'), bytes, 0, bytes.length);
+    }
+}
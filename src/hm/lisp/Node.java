@@ -0,0 +1,69 @@
+package hm.lisp;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+abstract class Node implements Serializable {
+    abstract Object eval(Scope scope);
+
+    double evalNumber(Scope scope) {
+        return (double) eval(scope);
+    }
+
+    boolean evalBoolean(Scope scope) {
+        return (boolean) eval(scope);
+    }
+
+    abstract void describe(Substitution substitution, StringBuilder out);
+
+    Node optimize() {
+        return this;
+    }
+
+    boolean inlinable() {
+        return false;
+    }
+
+    Node inline(Node[] arguments) {
+        return this;
+    }
+
+    void guards(List<Node> guards) {
+    }
+
+    ValueType compile(FunctionCompiler compiler) {
+        return null;
+    }
+
+    public String toString() {
+        StringBuilder out = new StringBuilder();
+        describe(Substitution.NONE, out);
+        return out.toString();
+    }
+
+    static void render(List<Symbol> names, StringBuilder out) {
+        out.append('(');
+        for (int i = 0; i < names.size(); i++) {
+            if (i > 0)
+                out.append(' ');
+            out.append(names.get(i));
+        }
+        out.append(')');
+    }
+
+    static List<Node> optimizeAll(List<Node> nodes) {
+        List<Node> optimized = new ArrayList<>();
+        for (Node node : nodes)
+            optimized.add(node.optimize());
+        return optimized;
+    }
+
+    static void describeAll(List<Node> nodes, Substitution substitution, StringBuilder out) {
+        for (Node node : nodes) {
+            out.append(' ');
+            node.describe(substitution, out);
+        }
+        out.append(')');
+    }
+}
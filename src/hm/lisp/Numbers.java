@@ -0,0 +1,19 @@
+package hm.lisp;
+
+class Numbers {
+    private static final int LOW = -128;
+    private static final int HIGH = 1024;
+    private static final Double[] CACHE = new Double[HIGH - LOW];
+
+    static {
+        for (int i = 0; i < CACHE.length; i++)
+            CACHE[i] = (double) (i + LOW);
+    }
+
+    static Double box(double value) {
+        int integer = (int) value;
+        if (integer == value && integer >= LOW && integer < HIGH && (integer != 0 || Double.doubleToRawLongBits(value) == 0L))
+            return CACHE[integer - LOW];
+        return value;
+    }
+}
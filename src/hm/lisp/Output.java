@@ -0,0 +1,75 @@
+package hm.lisp;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+class Output {
+    private static final int LIMIT = 8192;
+    private static final ThreadLocal<Output> CURRENT = new ThreadLocal<>();
+
+    private final Appendable sink;
+    private final StringBuilder buffer = new StringBuilder();
+    private boolean closed;
+
+    Output(Appendable sink) {
+        this.sink = sink;
+    }
+
+    static void print(Object value) {
+        Output output = CURRENT.get();
+        if (output == null) {
+            output = new Output(System.out);
+            output.write(value);
+            output.flush();
+        } else {
+            output.write(value);
+        }
+    }
+
+    static Output current() {
+        return CURRENT.get();
+    }
+
+    static Output redirect(Output output) {
+        Output previous = CURRENT.get();
+        if (output == null)
+            CURRENT.remove();
+        else
+            CURRENT.set(output);
+        return previous;
+    }
+
+    static void restore(Output previous) {
+        if (previous == null)
+            CURRENT.remove();
+        else
+            CURRENT.set(previous);
+    }
+
+    synchronized void write(Object value) {
+        Printer.print(value, buffer);
+        if (closed || buffer.length() >= LIMIT)
+            flush();
+    }
+
+    synchronized void close() {
+        closed = true;
+        flush();
+    }
+
+    synchronized void flush() {
+        if (buffer.length() == 0)
+            return;
+        try {
+            synchronized (sink) {
+                sink.append(buffer);
+                if (sink instanceof Flushable)
+                    ((Flushable) sink).flush();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        buffer.setLength(0);
+    }
+}
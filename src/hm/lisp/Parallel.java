@@ -0,0 +1,40 @@
+package hm.lisp;
+
+import java.util.List;
+
+class Parallel extends Node {
+    private static final Object[] NO_ARGUMENTS = new Object[0];
+
+    private final List<Lambda> thunks;
+
+    Parallel(List<Lambda> thunks) {
+        this.thunks = thunks;
+    }
+
+    Object eval(Scope scope) {
+        Task[] tasks = new Task[thunks.size()];
+        try {
+            for (int i = 1; i < tasks.length; i++)
+                tasks[i] = Task.spawn(thunks.get(i).eval(scope), NO_ARGUMENTS);
+            Object first = Closure.call(thunks.get(0).eval(scope), NO_ARGUMENTS);
+            Object results = Cons.EMPTY;
+            for (int i = tasks.length - 1; i > 0; i--)
+                results = new Cons(tasks[i].join(), results);
+            return new Cons(first, results);
+        } catch (RuntimeException | Error e) {
+            for (Task task : tasks)
+                if (task != null)
+                    task.abandon();
+            throw e;
+        }
+    }
+
+    void describe(Substitution substitution, StringBuilder out) {
+        out.append("(parallel");
+        for (Lambda thunk : thunks) {
+            out.append(' ');
+            thunk.body.describe(substitution.enter(), out);
+        }
+        out.append(')');
+    }
+}
@@ -1,101 +1,114 @@
 package hm.lisp;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
 import java.util.List;
-import java.util.Stack;
 
 import static java.lang.Character.isDigit;
+import static java.lang.Character.isWhitespace;
 
 class Parser {
-    private Environment environment;
-    private Stack<Frame> frames = new Stack<>();
+    static final Object END = new Object();
+    private static final int BUFFER_SIZE = 8192;
 
-    Parser(Environment environment) {
-        this.environment = environment;
+    private final Reader reader;
+    private char[] buffer = new char[BUFFER_SIZE];
+    private int position;
+    private int limit;
+    private int start = -1;
+
+    Parser(Reader reader) {
+        this.reader = reader;
     }
 
-    void parse(String code) {
-        Frame frame = new Frame();
-        for (int index = 0; index < code.length(); index++) {
-            char c = code.charAt(index);
-            if (c == '\n') {
+    Object next() throws IOException {
+        Deque<List<Object>> lists = new ArrayDeque<>();
+        while (true) {
+            int c = peek();
+            Object element;
+            if (c < 0) {
+                if (!lists.isEmpty())
+                    throw new RuntimeException("Unexpected end of input");
+                return END;
+            } else if (isWhitespace(c)) {
+                position++;
                 continue;
             } else if (c == '(') {
-                if (frame.readingList) {
-                    frames.push(frame);
-                    frame = new Frame();
-                    frame.readingList = true;
-                } else {
-                    frame.readingList = true;
-                }
+                position++;
+                lists.push(new ArrayList<>());
+                continue;
             } else if (c == ')') {
-                if (frame.readingNumber) {
-                    frame.readingNumber = false;
-                    frame.list.add(Double.parseDouble(frame.number));
-                }
-                if (frame.readingSymbol) {
-                    frame.readingSymbol = false;
-                    frame.list.add(frame.symbol.trim());
-                }
-                frame.readingList = false;
-
-                if (!frames.empty()) {
-                    Frame previousFrame = frames.pop();
-                    previousFrame.list.add(frame.list);
-                    frame = previousFrame;
-                } else {
-                    environment.execute(frame.list);
-                    frame.list.clear();
-                }
+                position++;
+                if (lists.isEmpty())
+                    throw new RuntimeException("Unexpected )");
+                element = lists.pop();
             } else if (c == '"') {
-                if (frame.readingString) {
-                    frame.list.add(frame.string);
-                    frame.readingString = false;
-                } else {
-                    frame.readingString = true;
-                }
-            } else if (frame.readingList) {
-                if (frame.readingString) {
-                    frame.string += c;
-                } else {
-                    if (frame.readingSymbol) {
-                        if (c == ' ') {
-                            frame.readingSymbol = false;
-                            frame.list.add(frame.symbol.trim());
-                            frame.symbol = "";
-                        } else {
-                            frame.symbol += c;
-                        }
-                    } else {
-                        if (frame.readingNumber) {
-                            if (c == ' ') {
-                                frame.readingNumber = false;
-                                frame.list.add(Double.parseDouble(frame.number));
-                                frame.number = "";
-                            } else {
-                                frame.number += c;
-                            }
-                        } else {
-                            char next = code.charAt(index + 1);
-                            if (isDigit(c) || (c == '-' && isDigit(next))) {
-                                frame.readingNumber = true;
-                                frame.number += c;
-                            } else if (c != ' ') {
-                                frame.readingSymbol = true;
-                                frame.symbol += c;
-                            }
-                        }
-                    }
-                }
+                element = readString();
             } else {
-                frame.symbol += c;
-                if (index + 1 == code.length()) {
-                    List print = new ArrayList();
-                    print.add("print");
-                    print.add(environment.execute(frame.symbol));
-                    environment.execute(print);
-                }
+                element = readAtom();
             }
+            if (lists.isEmpty())
+                return element;
+            lists.peek().add(element);
         }
     }
+
+    private String readString() throws IOException {
+        start = ++position;
+        for (int c = peek(); c != '"'; c = peek()) {
+            if (c < 0)
+                throw new RuntimeException("Unterminated string");
+            position++;
+        }
+        String string = new String(buffer, start, position - start);
+        start = -1;
+        position++;
+        return string;
+    }
+
+    private Object readAtom() throws IOException {
+        start = position;
+        for (int c = peek(); c >= 0 && !isDelimiter(c); c = peek())
+            position++;
+        String token = new String(buffer, start, position - start);
+        start = -1;
+        return isNumber(token) ? (Object) Double.parseDouble(token) : Symbol.intern(token);
+    }
+
+    private int peek() throws IOException {
+        if (position == limit && !fill())
+            return -1;
+        return buffer[position];
+    }
+
+    private boolean fill() throws IOException {
+        int keep = start >= 0 ? start : position;
+        if (keep > 0) {
+            System.arraycopy(buffer, keep, buffer, 0, limit - keep);
+            limit -= keep;
+            position -= keep;
+            if (start >= 0)
+                start = 0;
+        }
+        if (limit == buffer.length)
+            buffer = Arrays.copyOf(buffer, buffer.length * 2);
+        int read = reader.read(buffer, limit, buffer.length - limit);
+        if (read <= 0)
+            return false;
+        limit += read;
+        return true;
+    }
+
+    private boolean isDelimiter(int c) {
+        return isWhitespace(c) || c == '(' || c == ')' || c == '"';
+    }
+
+    private boolean isNumber(String token) {
+        char first = token.charAt(0);
+        return isDigit(first) || (first == '-' && token.length() > 1 && isDigit(token.charAt(1)));
+    }
 }
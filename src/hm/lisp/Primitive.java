@@ -0,0 +1,33 @@
+package hm.lisp;
+
+import java.io.Serializable;
+
+abstract class Primitive implements Serializable {
+    final String name;
+
+    Primitive(String name) {
+        this.name = name;
+    }
+
+    abstract Object apply(Object[] arguments);
+
+    Object apply1(Object x) {
+        return apply(new Object[]{x});
+    }
+
+    Object apply2(Object x, Object y) {
+        return apply(new Object[]{x, y});
+    }
+
+    boolean pure() {
+        return false;
+    }
+
+    public String toString() {
+        return Primitives.PREFIX + name;
+    }
+
+    Object writeReplace() {
+        return new SerializedPrimitive(name);
+    }
+}
@@ -0,0 +1,96 @@
+package hm.lisp;
+
+import java.util.ArrayList;
+import java.util.List;
+
+class PrimitiveCall extends Node {
+    final Primitive primitive;
+    final List<Node> arguments;
+
+    PrimitiveCall(Primitive primitive, List<Node> arguments) {
+        this.primitive = primitive;
+        this.arguments = arguments;
+    }
+
+    static PrimitiveCall of(Primitive primitive, List<Node> arguments) {
+        if (arguments.size() == 2 && primitive instanceof Arithmetic)
+            return new ArithmeticCall((Arithmetic) primitive, arguments);
+        else if (arguments.size() == 2 && primitive instanceof Comparison)
+            return new ComparisonCall((Comparison) primitive, arguments);
+        else
+            return new PrimitiveCall(primitive, arguments);
+    }
+
+    Object eval(Scope scope) {
+        if (arguments.size() == 1)
+            return primitive.apply1(arguments.get(0).eval(scope));
+        if (arguments.size() == 2)
+            return primitive.apply2(arguments.get(0).eval(scope), arguments.get(1).eval(scope));
+        Object[] values = new Object[arguments.size()];
+        for (int i = 0; i < values.length; i++)
+            values[i] = arguments.get(i).eval(scope);
+        return primitive.apply(values);
+    }
+
+    ValueType compile(FunctionCompiler compiler) {
+        return compiler.primitive(primitive.name, arguments);
+    }
+
+    Node optimize() {
+        List<Node> arguments = optimizeAll(this.arguments);
+        PrimitiveCall call = of(primitive, arguments);
+        if (primitive.pure() && constant(arguments)) {
+            Object[] values = new Object[arguments.size()];
+            for (int i = 0; i < values.length; i++)
+                values[i] = Guarded.value(arguments.get(i));
+            try {
+                return Guarded.guard(arguments, new Constant(primitive.apply(values)), call);
+            } catch (RuntimeException e) {
+                return call;
+            }
+        }
+        return call;
+    }
+
+    boolean inlinable() {
+        for (Node argument : arguments)
+            if (!argument.inlinable())
+                return false;
+        return true;
+    }
+
+    Node inline(Node[] parameters) {
+        List<Node> inlined = new ArrayList<>();
+        for (Node argument : arguments)
+            inlined.add(argument.inline(parameters));
+        return of(primitive, inlined);
+    }
+
+    void guards(List<Node> guards) {
+        for (Node argument : arguments)
+            argument.guards(guards);
+    }
+
+    private static boolean constant(List<Node> arguments) {
+        for (Node argument : arguments)
+            if (!Guarded.constant(argument))
+                return false;
+        return true;
+    }
+
+    boolean forwards(int count) {
+        if (arguments.size() != count)
+            return false;
+        for (int i = 0; i < count; i++) {
+            Node argument = arguments.get(i);
+            if (!(argument instanceof LocalRef) || !((LocalRef) argument).refersTo(0, i))
+                return false;
+        }
+        return true;
+    }
+
+    void describe(Substitution substitution, StringBuilder out) {
+        out.append('(').append(Primitives.PREFIX).append(primitive.name);
+        describeAll(arguments, substitution, out);
+    }
+}
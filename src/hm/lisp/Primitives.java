@@ -0,0 +1,304 @@
+package hm.lisp;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static java.lang.String.format;
+
+class Primitives {
+    static final String PREFIX = "<primitive>";
+
+    private static final Map<String, Primitive> PRIMITIVES = new HashMap<>();
+
+    static {
+        register(new Arithmetic("+") {
+            double compute(double x, double y) {
+                return x + y;
+            }
+        });
+        register(new Arithmetic("-") {
+            double compute(double x, double y) {
+                return x - y;
+            }
+        });
+        register(new Arithmetic("*") {
+            double compute(double x, double y) {
+                return x * y;
+            }
+        });
+        register(new Arithmetic("/") {
+            double compute(double x, double y) {
+                return x / y;
+            }
+        });
+        register(new Comparison(">") {
+            boolean test(double x, double y) {
+                return x > y;
+            }
+        });
+        register(new Comparison(">=") {
+            boolean test(double x, double y) {
+                return x >= y;
+            }
+        });
+        register(new Comparison("<") {
+            boolean test(double x, double y) {
+                return x < y;
+            }
+        });
+        register(new Comparison("<=") {
+            boolean test(double x, double y) {
+                return x <= y;
+            }
+        });
+        register(new BinaryPrimitive("=") {
+            boolean pure() {
+                return true;
+            }
+
+            Object apply2(Object x, Object y) {
+                return x.equals(y);
+            }
+        });
+        register(new UnaryPrimitive("not") {
+            boolean pure() {
+                return true;
+            }
+
+            Object apply1(Object x) {
+                return !((boolean) x);
+            }
+        });
+        register(new BinaryPrimitive("and") {
+            boolean pure() {
+                return true;
+            }
+
+            Object apply2(Object x, Object y) {
+                return (boolean) x && (boolean) y;
+            }
+        });
+        register(new BinaryPrimitive("or") {
+            boolean pure() {
+                return true;
+            }
+
+            Object apply2(Object x, Object y) {
+                return (boolean) x || (boolean) y;
+            }
+        });
+        register(new UnaryPrimitive("print") {
+            Object apply1(Object x) {
+                Output.print(x);
+                return x;
+            }
+        });
+        register(new BinaryPrimitive("cons") {
+            Object apply2(Object x, Object y) {
+                Budget.allocate(1);
+                return new Cons(x, y);
+            }
+        });
+        register(new UnaryPrimitive("car") {
+            Object apply1(Object x) {
+                return pair(x, name).car;
+            }
+        });
+        register(new UnaryPrimitive("cdr") {
+            Object apply1(Object x) {
+                return pair(x, name).cdr;
+            }
+        });
+        register(new UnaryPrimitive("null?") {
+            Object apply1(Object x) {
+                return x == Cons.EMPTY;
+            }
+        });
+        register(new Primitive("list") {
+            Object apply(Object[] arguments) {
+                Budget.allocate(arguments.length);
+                Object list = Cons.EMPTY;
+                for (int i = arguments.length - 1; i >= 0; i--)
+                    list = new Cons(arguments[i], list);
+                return list;
+            }
+        });
+        vectors();
+        hashes();
+        futures();
+        sequences();
+    }
+
+    private static void vectors() {
+        register(new BinaryPrimitive("make-vector") {
+            Object apply2(Object x, Object y) {
+                Budget.allocate(index(x));
+                Object[] vector = new Object[index(x)];
+                Arrays.fill(vector, y);
+                return vector;
+            }
+        });
+        register(new BinaryPrimitive("make-numeric-vector") {
+            Object apply2(Object x, Object y) {
+                Budget.allocate(index(x));
+                double[] vector = new double[index(x)];
+                Arrays.fill(vector, (double) y);
+                return vector;
+            }
+        });
+        register(new Primitive("vector") {
+            Object apply(Object[] arguments) {
+                Budget.allocate(arguments.length);
+                return arguments.clone();
+            }
+        });
+        register(new BinaryPrimitive("vector-ref") {
+            Object apply2(Object x, Object y) {
+                int index = index(y);
+                if (x instanceof double[])
+                    return Numbers.box(((double[]) x)[index]);
+                return vector(x, name)[index];
+            }
+        });
+        register(new Primitive("vector-set!") {
+            Object apply(Object[] arguments) {
+                int index = index(arguments[1]);
+                if (arguments[0] instanceof double[])
+                    ((double[]) arguments[0])[index] = (double) arguments[2];
+                else
+                    vector(arguments[0], name)[index] = arguments[2];
+                return arguments[2];
+            }
+        });
+        register(new UnaryPrimitive("vector-length") {
+            Object apply1(Object x) {
+                if (x instanceof double[])
+                    return Numbers.box(((double[]) x).length);
+                return Numbers.box(vector(x, name).length);
+            }
+        });
+    }
+
+    private static void hashes() {
+        register(new Primitive("make-hash") {
+            Object apply(Object[] arguments) {
+                return new HashMap<Object, Object>();
+            }
+        });
+        register(new Primitive("hash-ref") {
+            Object apply(Object[] arguments) {
+                Object value = hash(arguments[0], name).get(arguments[1]);
+                if (value != null)
+                    return value;
+                if (arguments.length > 2)
+                    return arguments[2];
+                throw new RuntimeException(format("Key %s not found", arguments[1]));
+            }
+        });
+        register(new Primitive("hash-set!") {
+            Object apply(Object[] arguments) {
+                Budget.allocate(1);
+                hash(arguments[0], name).put(arguments[1], arguments[2]);
+                return arguments[2];
+            }
+        });
+        register(new UnaryPrimitive("hash-count") {
+            Object apply1(Object x) {
+                return Numbers.box(hash(x, name).size());
+            }
+        });
+    }
+
+    private static void futures() {
+        register(new UnaryPrimitive("force") {
+            Object apply1(Object x) {
+                if (x instanceof Task)
+                    return ((Task) x).join();
+                if (x instanceof Promise)
+                    return ((Promise) x).force();
+                return x;
+            }
+        });
+        register(new BinaryPrimitive("pmap") {
+            Object apply2(Object x, Object y) {
+                List<Task> tasks = new ArrayList<>();
+                for (Object rest = y; rest != Cons.EMPTY; rest = pair(rest, name).cdr)
+                    tasks.add(Task.spawn(x, new Object[] {pair(rest, name).car}));
+                Budget.allocate(tasks.size());
+                Object results = Cons.EMPTY;
+                for (int i = tasks.size() - 1; i >= 0; i--)
+                    results = new Cons(tasks.get(i).join(), results);
+                return results;
+            }
+        });
+    }
+
+    private static void sequences() {
+        register(new BinaryPrimitive("range") {
+            Object apply2(Object x, Object y) {
+                return Sequence.range((double) x, (double) y);
+            }
+        });
+        register(new BinaryPrimitive("iterate") {
+            Object apply2(Object x, Object y) {
+                return Sequence.iterate(x, y);
+            }
+        });
+        register(new BinaryPrimitive("map") {
+            Object apply2(Object x, Object y) {
+                return Sequence.map(x, y);
+            }
+        });
+        register(new BinaryPrimitive("filter") {
+            Object apply2(Object x, Object y) {
+                return Sequence.filter(x, y);
+            }
+        });
+        register(new BinaryPrimitive("take") {
+            Object apply2(Object x, Object y) {
+                return Sequence.take((long) (double) x, y);
+            }
+        });
+        register(new Primitive("reduce") {
+            Object apply(Object[] arguments) {
+                return Sequence.reduce(arguments[0], arguments[1], arguments[2]);
+            }
+        });
+    }
+
+    private static int index(Object value) {
+        return (int) (double) value;
+    }
+
+    private static Object[] vector(Object value, String operation) {
+        if (!(value instanceof Object[]))
+            throw new RuntimeException(format("Cannot apply %s to %s", operation, value));
+        return (Object[]) value;
+    }
+
+    private static Map<Object, Object> hash(Object value, String operation) {
+        if (!(value instanceof Map))
+            throw new RuntimeException(format("Cannot apply %s to %s", operation, value));
+        return (Map<Object, Object>) value;
+    }
+
+    private static Cons pair(Object value, String operation) {
+        if (!(value instanceof Cons) || value == Cons.EMPTY)
+            throw new RuntimeException(format("Cannot take %s of %s", operation, value));
+        return (Cons) value;
+    }
+
+    private static void register(Primitive primitive) {
+        PRIMITIVES.put(primitive.name, primitive);
+    }
+
+    static Primitive get(String name) {
+        Primitive primitive = PRIMITIVES.get(name);
+        if (primitive == null)
+            throw new RuntimeException(format("Primitive operator %s does not exist", name));
+        return primitive;
+    }
+}
@@ -0,0 +1,91 @@
+package hm.lisp;
+
+import java.util.Iterator;
+import java.util.Map;
+
+class Printer {
+    static void print(Object value, StringBuilder out) {
+        if (value instanceof Double)
+            out.append(((Double) value).doubleValue());
+        else if (value instanceof Closure)
+            ((Closure) value).describe(out);
+        else if (value instanceof Memoized)
+            ((Memoized) value).closure.describe(out);
+        else if (value instanceof Cons)
+            printList((Cons) value, out);
+        else if (value instanceof Sequence)
+            printSequence((Sequence) value, out);
+        else if (value instanceof Object[])
+            printVector((Object[]) value, out);
+        else if (value instanceof double[])
+            printVector((double[]) value, out);
+        else if (value instanceof Map)
+            printHash((Map<?, ?>) value, out);
+        else
+            out.append(value);
+    }
+
+    private static void printSequence(Sequence sequence, StringBuilder out) {
+        out.append('(');
+        Iterator<Object> elements = sequence.iterator();
+        for (boolean first = true; elements.hasNext(); first = false) {
+            if (!first)
+                out.append(' ');
+            print(elements.next(), out);
+        }
+        out.append(')');
+    }
+
+    private static void printVector(Object[] vector, StringBuilder out) {
+        out.append("#(");
+        for (int i = 0; i < vector.length; i++) {
+            if (i > 0)
+                out.append(' ');
+            print(vector[i], out);
+        }
+        out.append(')');
+    }
+
+    private static void printVector(double[] vector, StringBuilder out) {
+        out.append("#(");
+        for (int i = 0; i < vector.length; i++) {
+            if (i > 0)
+                out.append(' ');
+            out.append(vector[i]);
+        }
+        out.append(')');
+    }
+
+    private static void printHash(Map<?, ?> hash, StringBuilder out) {
+        out.append("#hash(");
+        boolean first = true;
+        for (Map.Entry<?, ?> entry : hash.entrySet()) {
+            if (!first)
+                out.append(' ');
+            first = false;
+            out.append('(');
+            print(entry.getKey(), out);
+            out.append(" . ");
+            print(entry.getValue(), out);
+            out.append(')');
+        }
+        out.append(')');
+    }
+
+    private static void printList(Cons list, StringBuilder out) {
+        out.append('(');
+        Object rest = list;
+        while (rest instanceof Cons && rest != Cons.EMPTY) {
+            Cons cell = (Cons) rest;
+            if (cell != list)
+                out.append(' ');
+            print(cell.car, out);
+            rest = cell.cdr;
+        }
+        if (rest != Cons.EMPTY) {
+            out.append(" . ");
+            print(rest, out);
+        }
+        out.append(')');
+    }
+}
@@ -0,0 +1,21 @@
+package hm.lisp;
+
+class ProfileFrame {
+    final ProfileFrame parent;
+    final ProfileNode node;
+    final int[] counter;
+    final int depth;
+    final long start;
+    final long allocated;
+    long childTime;
+    long childAllocated;
+
+    ProfileFrame(ProfileFrame parent, ProfileNode node, int[] counter, long start, long allocated) {
+        this.parent = parent;
+        this.node = node;
+        this.counter = counter;
+        this.depth = ++counter[0];
+        this.start = start;
+        this.allocated = allocated;
+    }
+}
@@ -0,0 +1,56 @@
+package hm.lisp;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+class ProfileNode {
+    private static final int MAXIMUM_STACK_DEPTH = 512;
+
+    final String name;
+    final LongAdder selfTime = new LongAdder();
+    private final Map<String, ProfileNode> children = new ConcurrentHashMap<>();
+
+    ProfileNode(String name) {
+        this.name = name;
+    }
+
+    ProfileNode child(String name) {
+        ProfileNode child = children.get(name);
+        return child != null ? child : children.computeIfAbsent(name, ProfileNode::new);
+    }
+
+    void collapse(StringBuilder out) {
+        collapse(new StringBuilder(), 1, out);
+    }
+
+    private void collapse(StringBuilder path, int depth, StringBuilder out) {
+        for (ProfileNode child : new TreeMap<>(children).values()) {
+            int length = path.length();
+            if (length > 0)
+                path.append(';');
+            path.append(child.name);
+            boolean truncated = depth == MAXIMUM_STACK_DEPTH;
+            out.append(path).append(' ').append(truncated ? child.totalTime() : child.selfTime.sum()).append('\n');
+            if (!truncated)
+                child.collapse(path, depth + 1, out);
+            path.setLength(length);
+        }
+    }
+
+    private long totalTime() {
+        long total = 0;
+        Deque<ProfileNode> pending = new ArrayDeque<>();
+        pending.push(this);
+        while (!pending.isEmpty()) {
+            ProfileNode node = pending.pop();
+            total += node.selfTime.sum();
+            for (ProfileNode child : node.children.values())
+                pending.push(child);
+        }
+        return total;
+    }
+}
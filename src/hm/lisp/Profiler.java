@@ -0,0 +1,99 @@
+package hm.lisp;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static java.lang.String.format;
+
+class Profiler {
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    private final Map<String, FunctionProfile> functions = new ConcurrentHashMap<>();
+    private final ProfileNode root = new ProfileNode(null);
+    private final ThreadLocal<ProfileFrame> top = new ThreadLocal<>();
+    private final ThreadLocal<Map<String, int[]>> depths = ThreadLocal.withInitial(HashMap::new);
+
+    static Profiler current() {
+        return Instrumentation.current().profiler();
+    }
+
+    static Object enter(Instrumentation instrumentation, Closure closure, Object[] arguments) {
+        Profiler profiler = instrumentation.profiler();
+        if (profiler == null)
+            return closure.enter(arguments, instrumentation.instrumented());
+        ProfileFrame frame = profiler.push(closure.lambda.name());
+        try {
+            return closure.enter(arguments, true);
+        } finally {
+            profiler.pop(frame);
+        }
+    }
+
+    Profiler attach() {
+        return Instrumentation.current().attach(this);
+    }
+
+    static void detach(Profiler previous) {
+        Instrumentation.current().attach(previous);
+    }
+
+    private ProfileFrame push(String name) {
+        ProfileFrame parent = top.get();
+        ProfileNode node = (parent == null ? root : parent.node).child(name);
+        int[] depth = depths.get().computeIfAbsent(name, key -> new int[1]);
+        ProfileFrame frame = new ProfileFrame(parent, node, depth, System.nanoTime(), allocated());
+        top.set(frame);
+        return frame;
+    }
+
+    private void pop(ProfileFrame frame) {
+        long elapsed = System.nanoTime() - frame.start;
+        long allocated = allocated() - frame.allocated;
+        top.set(frame.parent);
+        frame.counter[0]--;
+        if (frame.parent != null) {
+            frame.parent.childTime += elapsed;
+            frame.parent.childAllocated += allocated;
+        }
+        long self = elapsed - frame.childTime;
+        functions.computeIfAbsent(frame.node.name, FunctionProfile::new)
+                 .record(frame, elapsed, self, allocated - frame.childAllocated);
+        frame.node.selfTime.add(self);
+    }
+
+    private static long allocated() {
+        if (THREADS instanceof com.sun.management.ThreadMXBean)
+            return ((com.sun.management.ThreadMXBean) THREADS).getThreadAllocatedBytes(Thread.currentThread().getId());
+        return 0;
+    }
+
+    String report() {
+        List<FunctionProfile> profiles = new ArrayList<>(functions.values());
+        profiles.sort(Comparator.comparingLong((FunctionProfile profile) -> profile.selfTime).reversed());
+        StringBuilder out = new StringBuilder(format("%-24s %10s %12s %12s %10s %16s%n",
+                                                     "function", "calls", "total ms", "self ms", "max depth", "allocated bytes"));
+        for (FunctionProfile profile : profiles)
+            synchronized (profile) {
+                out.append(format("%-24s %10d %12.3f %12.3f %10d %16d%n",
+                                  profile.name,
+                                  profile.calls,
+                                  profile.totalTime / 1e6,
+                                  profile.selfTime / 1e6,
+                                  profile.maximumDepth,
+                                  profile.allocated));
+            }
+        return out.toString();
+    }
+
+    String collapsedStacks() {
+        StringBuilder out = new StringBuilder();
+        root.collapse(out);
+        return out.toString();
+    }
+}
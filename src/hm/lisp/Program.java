@@ -0,0 +1,21 @@
+package hm.lisp;
+
+class Program {
+    private final Node body;
+    private final int frameSize;
+    final boolean echo;
+
+    Program(Node body, int frameSize, boolean echo) {
+        this.body = body;
+        this.frameSize = frameSize;
+        this.echo = echo;
+    }
+
+    public String toString() {
+        return body.toString();
+    }
+
+    Object run() {
+        return body.eval(frameSize == 0 ? null : new Scope(new Object[frameSize], null));
+    }
+}
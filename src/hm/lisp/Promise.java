@@ -0,0 +1,26 @@
+package hm.lisp;
+
+import java.io.Serializable;
+
+class Promise implements Serializable {
+    private static final Object[] NO_ARGUMENTS = new Object[0];
+
+    private Object thunk;
+    private Object value;
+
+    Promise(Object thunk) {
+        this.thunk = thunk;
+    }
+
+    synchronized Object force() {
+        if (thunk != null) {
+            value = Closure.call(thunk, NO_ARGUMENTS);
+            thunk = null;
+        }
+        return value;
+    }
+
+    public String toString() {
+        return "#<promise>";
+    }
+}
@@ -0,0 +1,8 @@
+package hm.lisp;
+
+public class Safepoint {
+    public static void poll() {
+        if (Instrumentation.active())
+            Instrumentation.current().poll();
+    }
+}
@@ -0,0 +1,13 @@
+package hm.lisp;
+
+import java.io.Serializable;
+
+class Scope implements Serializable {
+    final Object[] slots;
+    final Scope parent;
+
+    Scope(Object[] slots, Scope parent) {
+        this.slots = slots;
+        this.parent = parent;
+    }
+}
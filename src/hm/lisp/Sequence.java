@@ -0,0 +1,162 @@
+package hm.lisp;
+
+import java.io.Serializable;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import static java.lang.String.format;
+
+abstract class Sequence implements Serializable {
+    abstract Iterator<Object> iterator();
+
+    static Iterator<Object> iterator(Object value) {
+        if (value instanceof Sequence)
+            return ((Sequence) value).iterator();
+        if (value instanceof Cons)
+            return list((Cons) value);
+        throw new RuntimeException(format("%s is not a sequence", value));
+    }
+
+    static Sequence range(double start, double end) {
+        return new Sequence() {
+            Iterator<Object> iterator() {
+                return new Iterator<Object>() {
+                    private double next = start;
+
+                    public boolean hasNext() {
+                        return next < end;
+                    }
+
+                    public Object next() {
+                        if (!hasNext())
+                            throw new NoSuchElementException();
+                        Budget.tick();
+                        return Numbers.box(next++);
+                    }
+                };
+            }
+        };
+    }
+
+    static Sequence iterate(Object function, Object seed) {
+        return new Sequence() {
+            Iterator<Object> iterator() {
+                return new Iterator<Object>() {
+                    private Object next = seed;
+
+                    public boolean hasNext() {
+                        return true;
+                    }
+
+                    public Object next() {
+                        Object value = next;
+                        next = Closure.call(function, new Object[] {value});
+                        return value;
+                    }
+                };
+            }
+        };
+    }
+
+    static Sequence map(Object function, Object source) {
+        return new Sequence() {
+            Iterator<Object> iterator() {
+                Iterator<Object> elements = iterator(source);
+                return new Iterator<Object>() {
+                    public boolean hasNext() {
+                        return elements.hasNext();
+                    }
+
+                    public Object next() {
+                        return Closure.call(function, new Object[] {elements.next()});
+                    }
+                };
+            }
+        };
+    }
+
+    static Sequence filter(Object predicate, Object source) {
+        return new Sequence() {
+            Iterator<Object> iterator() {
+                Iterator<Object> elements = iterator(source);
+                return new Iterator<Object>() {
+                    private Object next;
+                    private boolean ready;
+
+                    public boolean hasNext() {
+                        while (!ready && elements.hasNext()) {
+                            Object candidate = elements.next();
+                            if ((boolean) Closure.call(predicate, new Object[] {candidate})) {
+                                next = candidate;
+                                ready = true;
+                            }
+                        }
+                        return ready;
+                    }
+
+                    public Object next() {
+                        if (!hasNext())
+                            throw new NoSuchElementException();
+                        ready = false;
+                        Object value = next;
+                        next = null;
+                        return value;
+                    }
+                };
+            }
+        };
+    }
+
+    static Sequence take(long count, Object source) {
+        return new Sequence() {
+            Iterator<Object> iterator() {
+                Iterator<Object> elements = iterator(source);
+                return new Iterator<Object>() {
+                    private long remaining = count;
+
+                    public boolean hasNext() {
+                        return remaining > 0 && elements.hasNext();
+                    }
+
+                    public Object next() {
+                        if (!hasNext())
+                            throw new NoSuchElementException();
+                        remaining--;
+                        return elements.next();
+                    }
+                };
+            }
+        };
+    }
+
+    static Object reduce(Object function, Object initial, Object source) {
+        Object result = initial;
+        for (Iterator<Object> elements = iterator(source); elements.hasNext(); )
+            result = Closure.call(function, new Object[] {result, elements.next()});
+        return result;
+    }
+
+    private static Iterator<Object> list(Cons list) {
+        return new Iterator<Object>() {
+            private Object rest = list;
+
+            public boolean hasNext() {
+                return rest != Cons.EMPTY;
+            }
+
+            public Object next() {
+                if (!(rest instanceof Cons) || rest == Cons.EMPTY)
+                    throw new NoSuchElementException();
+                Cons cell = (Cons) rest;
+                rest = cell.cdr;
+                return cell.car;
+            }
+        };
+    }
+
+    public String toString() {
+        StringBuilder out = new StringBuilder();
+        Printer.print(this, out);
+        return out.toString();
+    }
+}
@@ -0,0 +1,15 @@
+package hm.lisp;
+
+import java.io.Serializable;
+
+class SerializedPrimitive implements Serializable {
+    private final String name;
+
+    SerializedPrimitive(String name) {
+        this.name = name;
+    }
+
+    private Object readResolve() {
+        return Primitives.get(name);
+    }
+}
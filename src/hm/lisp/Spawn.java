@@ -0,0 +1,21 @@
+package hm.lisp;
+
+class Spawn extends Node {
+    private static final Object[] NO_ARGUMENTS = new Object[0];
+
+    private final Lambda thunk;
+
+    Spawn(Lambda thunk) {
+        this.thunk = thunk;
+    }
+
+    Object eval(Scope scope) {
+        return Task.spawn(thunk.eval(scope), NO_ARGUMENTS);
+    }
+
+    void describe(Substitution substitution, StringBuilder out) {
+        out.append("(future ");
+        thunk.body.describe(substitution.enter(), out);
+        out.append(')');
+    }
+}
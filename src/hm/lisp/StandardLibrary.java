@@ -0,0 +1,69 @@
+package hm.lisp;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+
+class StandardLibrary {
+    private static final String[] DEFINITIONS = {
+        "(define (+ x y) (<primitive>+ x y))",
+        "(define (- x y) (<primitive>- x y))",
+        "(define (* x y) (<primitive>* x y))",
+        "(define (/ x y) (<primitive>/ x y))",
+        "(define (= x y) (<primitive>= x y))",
+        "(define (not x) (<primitive>not x))",
+        "(define (> x y) (<primitive>> x y))",
+        "(define (< x y) (<primitive>< x y))",
+        "(define (>= x y) (<primitive>>= x y))",
+        "(define (<= x y) (<primitive><= x y))",
+        "(define (or x y) (<primitive>or x y))",
+        "(define (and x y) (<primitive>and x y))",
+        "(define (print x) (<primitive>print x))",
+        "(define increment (+ 1))",
+        "(define (decrement y) (<primitive>- y 1))",
+        "(define pair (lambda (x y) (lambda (z) (if (= z 0) x y))))",
+        "(define left (lambda (pair) (pair 0)))",
+        "(define right (lambda (pair) (pair 1)))",
+        "(define (cons x y) (<primitive>cons x y))",
+        "(define (car x) (<primitive>car x))",
+        "(define (cdr x) (<primitive>cdr x))",
+        "(define (null? x) (<primitive>null? x))",
+        "(define list <primitive>list)",
+        "(define nil (<primitive>list))",
+        "(define (make-vector n x) (<primitive>make-vector n x))",
+        "(define (make-numeric-vector n x) (<primitive>make-numeric-vector n x))",
+        "(define vector <primitive>vector)",
+        "(define (vector-ref v i) (<primitive>vector-ref v i))",
+        "(define (vector-set! v i x) (<primitive>vector-set! v i x))",
+        "(define (vector-length v) (<primitive>vector-length v))",
+        "(define make-hash <primitive>make-hash)",
+        "(define hash-ref <primitive>hash-ref)",
+        "(define (hash-set! h k v) (<primitive>hash-set! h k v))",
+        "(define (hash-count h) (<primitive>hash-count h))",
+        "(define (force x) (<primitive>force x))",
+        "(define (pmap f items) (<primitive>pmap f items))",
+        "(define (range start end) (<primitive>range start end))",
+        "(define (iterate f x) (<primitive>iterate f x))",
+        "(define (map f items) (<primitive>map f items))",
+        "(define (filter f items) (<primitive>filter f items))",
+        "(define (take n items) (<primitive>take n items))",
+        "(define (reduce f initial items) (<primitive>reduce f initial items))"
+    };
+
+    private static final Environment ENVIRONMENT = load();
+
+    static Environment environment() {
+        return ENVIRONMENT;
+    }
+
+    private static Environment load() {
+        Environment environment = new Environment(CompilationMode.INTERPRETED);
+        try {
+            for (String definition : DEFINITIONS)
+                environment.execute(new Parser(new StringReader(definition)).next());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return environment;
+    }
+}
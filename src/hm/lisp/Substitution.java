@@ -0,0 +1,32 @@
+package hm.lisp;
+
+class Substitution {
+    static final Substitution NONE = new Substitution(null, new Object[0], 0, false);
+
+    private final Scope captured;
+    private final Object[] bound;
+    private final int level;
+    final boolean source;
+
+    Substitution(Scope captured, Object[] bound, int level, boolean source) {
+        this.captured = captured;
+        this.bound = bound;
+        this.level = level;
+        this.source = source;
+    }
+
+    Substitution enter() {
+        return new Substitution(captured, bound, level + 1, source);
+    }
+
+    Object lookup(int depth, int slot) {
+        if (depth < level)
+            return null;
+        if (depth == level)
+            return slot < bound.length ? bound[slot] : null;
+        Scope frame = captured;
+        for (int i = level + 1; i < depth && frame != null; i++)
+            frame = frame.parent;
+        return frame == null ? null : frame.slots[slot];
+    }
+}
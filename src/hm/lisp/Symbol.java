@@ -0,0 +1,34 @@
+package hm.lisp;
+
+import java.io.Serializable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+class Symbol implements Serializable {
+    private static final ConcurrentMap<String, Symbol> SYMBOLS = new ConcurrentHashMap<>();
+
+    final String name;
+    private final int hash;
+
+    private Symbol(String name) {
+        this.name = name;
+        this.hash = name.hashCode();
+    }
+
+    static Symbol intern(String name) {
+        Symbol symbol = SYMBOLS.get(name);
+        return symbol != null ? symbol : SYMBOLS.computeIfAbsent(name, Symbol::new);
+    }
+
+    private Object readResolve() {
+        return intern(name);
+    }
+
+    public int hashCode() {
+        return hash;
+    }
+
+    public String toString() {
+        return name;
+    }
+}
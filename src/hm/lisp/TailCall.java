@@ -0,0 +1,11 @@
+package hm.lisp;
+
+class TailCall {
+    final Object function;
+    final Object[] arguments;
+
+    TailCall(Object function, Object[] arguments) {
+        this.function = function;
+        this.arguments = arguments;
+    }
+}
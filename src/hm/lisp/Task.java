@@ -0,0 +1,45 @@
+package hm.lisp;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+class Task extends RecursiveTask<Object> {
+    private static final int SURPLUS_THRESHOLD = 3;
+
+    private final Context context;
+    private final Object function;
+    private final Object[] arguments;
+
+    private Task(Context context, Object function, Object[] arguments) {
+        this.context = context;
+        this.function = function;
+        this.arguments = arguments;
+    }
+
+    static Task spawn(Object function, Object[] arguments) {
+        Context context = Context.capture();
+        Task task = new Task(context, function, arguments);
+        ForkJoinPool pool = context.pool();
+        if (ForkJoinTask.getPool() != pool)
+            pool.execute(task);
+        else if (ForkJoinTask.getSurplusQueuedTaskCount() > SURPLUS_THRESHOLD)
+            task.invoke();
+        else
+            task.fork();
+        return task;
+    }
+
+    void abandon() {
+        context.cancel();
+        quietlyJoin();
+    }
+
+    protected Object compute() {
+        return context.call(function, arguments);
+    }
+
+    public String toString() {
+        return isDone() ? "#<future " + join() + ">" : "#<future>";
+    }
+}
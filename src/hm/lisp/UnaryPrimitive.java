@@ -0,0 +1,13 @@
+package hm.lisp;
+
+abstract class UnaryPrimitive extends Primitive {
+    UnaryPrimitive(String name) {
+        super(name);
+    }
+
+    abstract Object apply1(Object x);
+
+    Object apply(Object[] arguments) {
+        return apply1(arguments[0]);
+    }
+}
@@ -0,0 +1,14 @@
+package hm.lisp;
+
+enum ValueType {
+    NUMBER("D", 2),
+    BOOLEAN("Z", 1);
+
+    final String descriptor;
+    final int size;
+
+    ValueType(String descriptor, int size) {
+        this.descriptor = descriptor;
+        this.size = size;
+    }
+}
@@ -6,9 +6,27 @@ import org.junit.Test;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InvalidClassException;
+import java.io.NotSerializableException;
+import java.io.ObjectOutputStream;
 import java.io.PrintStream;
+import java.io.Serializable;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 public class InterpreterTest {
     private PrintStream realOutput;
@@ -316,6 +334,585 @@ public class InterpreterTest {
         assertOutput("1.0, 2.0, 3.0, 4.0, 5.0, 6.0, 7.0, 8.0, 9.0, 10.0");
     }
 
+    @Test
+    public void closureKeepsDefiningScope() throws Exception {
+        interpreter.evaluate("(define (adder n) (lambda (x) (+ x n)))\n" +
+                             "(define add-2 (adder 2))\n" +
+                             "(define n 100)\n" +
+                             "(print (add-2 1))");
+        assertOutput("3.0");
+    }
+
+    @Test
+    public void extraArgumentsApplyToResult() throws Exception {
+        interpreter.evaluate("(print ((lambda (x) (lambda (y) (+ x y))) 1 2))");
+        assertOutput("3.0");
+    }
+
+    @Test
+    public void letBindingsStayLocal() throws Exception {
+        interpreter.evaluate("(define a \"global\")\n" +
+                             "(print (let ((a \"local\")) a))\n" +
+                             "(print a)");
+        assertOutput("localglobal");
+    }
+
+    @Test
+    public void tailCallsRunInConstantStack() throws Exception {
+        interpreter.evaluate("(define (loop n)\n" +
+                             "  (if (= n 0)\n" +
+                             "    (print \"done\")\n" +
+                             "    (let ((m (decrement n)))\n" +
+                             "      (do (= m m) (loop m)))))\n" +
+                             "(loop 100000)");
+        assertOutput("done");
+    }
+
+    @Test
+    public void compiledRecursion() throws Exception {
+        interpreter = new Interpreter(CompilationMode.COMPILED);
+        interpreter.evaluate("(define (fib n) (if (< n 2) n (+ (fib (- n 1)) (fib (- n 2)))))\n" +
+                             "(define (sum n acc) (if (= n 0) acc (sum (decrement n) (+ acc n))))\n" +
+                             "(print (fib 20))\n" +
+                             "(print \", \")\n" +
+                             "(print (sum 100000 0))");
+        assertOutput("6765.0, 5.00005E9");
+    }
+
+    @Test
+    public void compiledCodeFollowsRedefinitions() throws Exception {
+        interpreter = new Interpreter(CompilationMode.COMPILED);
+        interpreter.evaluate("(define (add-one x) (+ x 1))\n" +
+                             "(print (add-one 1))\n" +
+                             "(define (+ x y) (<primitive>- x y))\n" +
+                             "(print (add-one 1))");
+        assertOutput("2.00.0");
+    }
+
+    @Test
+    public void compiledCodeFallsBackForWideFunctions() throws Exception {
+        interpreter = new Interpreter(CompilationMode.COMPILED);
+        StringBuilder parameters = new StringBuilder();
+        StringBuilder arguments = new StringBuilder();
+        for (int i = 0; i < 130; i++) {
+            parameters.append(" p").append(i);
+            arguments.append(' ').append(i);
+        }
+        interpreter.evaluate("(define (wide" + parameters + ") (+ p0 p129))\n" +
+                             "(print (wide" + arguments + "))");
+        assertOutput("129.0");
+    }
+
+    @Test
+    public void compiledCodeFallsBackForOtherValues() throws Exception {
+        interpreter = new Interpreter(CompilationMode.TIERED);
+        interpreter.evaluate("(define (same x y) (= x y))\n" +
+                             "(print (same 1 1))\n" +
+                             "(print (same (< 1 2) (< 2 3)))");
+        assertOutput("truetrue");
+    }
+
+    @Test
+    public void nestedPrimitiveArithmetic() throws Exception {
+        interpreter.evaluate("(print (<primitive>+ (<primitive>* 2 3) (<primitive>- 4 3)))\n" +
+                             "(print \", \")\n" +
+                             "(print (<primitive>* -1 0))");
+        assertOutput("7.0, -0.0");
+    }
+
+    @Test
+    public void separateStrings() throws Exception {
+        interpreter.evaluate("(print \"one\")\n" +
+                             "(print \"two\")");
+        assertOutput("onetwo");
+    }
+
+    @Test
+    public void evaluateLargeReader() throws Exception {
+        StringBuilder code = new StringBuilder();
+        for (int i = 0; i < 2000; i++)
+            code.append("(define value-").append(i).append(" ").append(i).append(")\n");
+        code.append("(print \"").append(new String(new char[10000]).replace('\0', 'x')).append("\")\n");
+        code.append("value-1999");
+        interpreter.evaluate(new StringReader(code.toString()));
+        assertOutput(new String(new char[10000]).replace('\0', 'x') + "1999.0");
+    }
+
+    @Test
+    public void evaluateFile() throws Exception {
+        Path file = Files.createTempFile("program", ".lisp");
+        try {
+            Files.write(file, "(define (square x) (* x x))\n(print (square 12))".getBytes("UTF-8"));
+            interpreter.evaluate(file);
+            assertOutput("144.0");
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void evaluateMappedFile() throws Exception {
+        Path file = Files.createTempFile("program", ".lisp");
+        try {
+            Files.write(file, ("(define greeting \"ol\u00e1 \u2713\")\n" +
+                               "(print (= greeting \"ol\u00e1 \u2713\"))").getBytes("UTF-8"));
+            try (MappedSourceReader reader = MappedSourceReader.open(file)) {
+                interpreter.evaluate(reader);
+            }
+            assertOutput("true");
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void imageRestoresDefinitions() throws Exception {
+        Path image = Files.createTempFile("image", ".bin");
+        try {
+            interpreter.evaluate("(define square (lambda (x) (* x x)))\n" +
+                                 "(define twice (lambda (f x) (f (f x))))");
+            interpreter.saveImage(image);
+            Interpreter.loadImage(image).evaluate("(print (twice square 3))");
+            assertOutput("81.0");
+        } finally {
+            Files.delete(image);
+        }
+    }
+
+    @Test
+    public void imageRestoresData() throws Exception {
+        Path image = Files.createTempFile("image", ".bin");
+        try {
+            interpreter.setMemoCapacity(10);
+            interpreter.evaluate("(define-memo (square x) (* x x))\n" +
+                                 "(define add-2 (+ 2))\n" +
+                                 "(define data (list \"text\" (< 1 2) (vector 1 2) (make-numeric-vector 2 0.5)))\n" +
+                                 "(define table (make-hash))\n" +
+                                 "(hash-set! table \"key\" (let ((x 3)) (lambda (y) (+ x y))))\n" +
+                                 "(square 4)");
+            interpreter.saveImage(image);
+            Interpreter.loadImage(image).evaluate("(print (list (square 4) (add-2 1) data ((hash-ref table \"key\") 1)))");
+            assertOutput("(16.0 3.0 (text true #(1.0 2.0) #(0.5 0.5)) 4.0)");
+        } finally {
+            Files.delete(image);
+        }
+    }
+
+    @Test
+    public void imageRejectsForeignClasses() throws Exception {
+        assertRejectedImage(new TreeMap<>(), "java.util.TreeMap");
+        Object nested = nestedClass();
+        assertRejectedImage(nested, nested.getClass().getName());
+    }
+
+    private static Object nestedClass() {
+        return new Serializable() {
+        };
+    }
+
+    private static void assertRejectedImage(Object content, String name) throws Exception {
+        Path image = Files.createTempFile("image", ".bin");
+        try {
+            try (ObjectOutputStream output = new ObjectOutputStream(new GZIPOutputStream(Files.newOutputStream(image)))) {
+                output.writeObject(content);
+            }
+            Interpreter.loadImage(image);
+            fail("Expected the image to be rejected");
+        } catch (InvalidClassException e) {
+            assertEquals(name + "; not allowed in an image", e.getMessage());
+        } finally {
+            Files.delete(image);
+        }
+    }
+
+    @Test
+    public void imageWithFutureIsNotWritten() throws Exception {
+        Path image = Files.createTempDirectory("image").resolve("image.bin");
+        interpreter.evaluate("(define pending (future 1))");
+        try {
+            interpreter.saveImage(image);
+            fail("Expected the image to be refused");
+        } catch (NotSerializableException e) {
+            assertTrue(Files.notExists(image));
+        } finally {
+            Files.delete(image.getParent());
+        }
+    }
+
+    @Test
+    public void interpretersShareStandardLibraryWithoutSharingDefinitions() throws Exception {
+        interpreter.evaluate("(define not (lambda (x) x))");
+        new Interpreter().evaluate("(print (not (< 2 1)))");
+        assertOutput("true");
+    }
+
+    @Test
+    public void compilationLeavesStandardLibraryUntouched() throws Exception {
+        Interpreter compiled = new Interpreter(CompilationMode.COMPILED);
+        compiled.evaluate("(define (f n) (decrement n))\n" +
+                          "(print (f 5))");
+        Global decrement = StandardLibrary.environment().global(Symbol.intern("decrement"));
+        assertEquals(null, ((Closure) decrement.value).lambda.code);
+        assertOutput("4.0");
+    }
+
+    @Test
+    public void concurrentEvaluation() throws Exception {
+        Interpreter shared = new Interpreter(CompilationMode.TIERED);
+        shared.evaluate("(define (fib n) (if (< n 2) n (+ (fib (- n 1)) (fib (- n 2)))))");
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                String code = "(define result" + i + " (fib 15))";
+                results.add(executor.submit(() -> shared.evaluate(code)));
+            }
+            for (Future<?> result : results)
+                result.get();
+        } finally {
+            executor.shutdown();
+        }
+        shared.evaluate("(print (and (= result0 result3) (= result7 610)))");
+        assertOutput("true");
+    }
+
+    @Test
+    public void evaluationServiceCapturesOutputPerSubmission() throws Exception {
+        try (EvaluationService service = new EvaluationService(4, 16)) {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 16; i++)
+                results.add(service.submit("(define n " + i + ")\n(print (increment n))"));
+            for (int i = 0; i < 16; i++)
+                assertEquals((i + 1) + ".0", results.get(i).get());
+            assertEquals(16, service.completed());
+            assertEquals(4, service.idleInterpreters());
+        }
+        assertOutput("");
+    }
+
+    @Test
+    public void evaluationServiceResetsInterpreters() throws Exception {
+        try (EvaluationService service = new EvaluationService(1, 4)) {
+            service.submit("(define + -)").get();
+            assertEquals("5.0", service.submit("(print (+ 2 3))").get());
+        }
+    }
+
+    @Test
+    public void printToOutputSink() throws Exception {
+        StringBuilder output = new StringBuilder();
+        Interpreter interpreter = new Interpreter(output);
+        interpreter.evaluate("(define (count n) (if (= n 0) 0 (do (print n) (print \" \") (count (decrement n)))))\n" +
+                             "(count 3)\n" +
+                             "(print (+ 2))");
+        assertEquals("3.0 2.0 1.0 (lambda (y) (<primitive>+ 2.0 y))", output.toString());
+        assertOutput("");
+    }
+
+    @Test
+    public void consLists() throws Exception {
+        interpreter.evaluate("(define (reverse items result)\n" +
+                             "  (if (null? items) result (reverse (cdr items) (cons (car items) result))))\n" +
+                             "(define numbers (list 1 2 3))\n" +
+                             "(print (reverse numbers nil))\n" +
+                             "(print (cdr numbers))\n" +
+                             "(print (cons 0 4))");
+        assertOutput("(3.0 2.0 1.0)(2.0 3.0)(0.0 . 4.0)");
+    }
+
+    @Test
+    public void vectors() throws Exception {
+        interpreter.evaluate("(define v (make-numeric-vector 3 0))\n" +
+                             "(define (fill i) (if (= i (vector-length v)) v (do (vector-set! v i (* i i)) (fill (increment i)))))\n" +
+                             "(print (fill 0))\n" +
+                             "(print (vector-ref (vector 1 \"two\" v) 1))");
+        assertOutput("#(0.0 1.0 4.0)two");
+    }
+
+    @Test
+    public void hashes() throws Exception {
+        interpreter.evaluate("(define h (make-hash))\n" +
+                             "(hash-set! h \"a\" 1)\n" +
+                             "(hash-set! h 2 \"b\")\n" +
+                             "(print (hash-ref h \"a\"))\n" +
+                             "(print (hash-ref h 3 \"none\"))\n" +
+                             "(print (hash-count h))");
+        assertOutput("1.0none2.0");
+    }
+
+    @Test
+    public void stringsAreNotSymbols() throws Exception {
+        interpreter.evaluate("(print (= \"hello\" hello))\n" +
+                             "(print (= hello hello))\n" +
+                             "(print \"define\")");
+        assertOutput("falsetruedefine");
+    }
+
+    @Test
+    public void memoizedDefinition() throws Exception {
+        interpreter.evaluate("(define-memo (fib n) (if (< n 2) n (+ (fib (- n 1)) (fib (- n 2)))))\n" +
+                             "(print (fib 70))");
+        assertOutput("1.90392490709135E14");
+        assertEquals(71, interpreter.memoMisses());
+        assertEquals(68, interpreter.memoHits());
+    }
+
+    @Test
+    public void memoCapacityEvictsLeastRecentlyUsed() throws Exception {
+        interpreter.setMemoCapacity(1);
+        interpreter.evaluate("(define-memo (square n) (* n n))\n" +
+                             "(square 2)\n" +
+                             "(square 3)\n" +
+                             "(square 2)\n" +
+                             "(square 2)");
+        assertEquals(3, interpreter.memoMisses());
+        assertEquals(1, interpreter.memoHits());
+    }
+
+    @Test
+    public void memoSettingsApplyToExistingFunctions() throws Exception {
+        Path image = Files.createTempFile("image", ".bin");
+        try {
+            interpreter.evaluate("(define-memo (square n) (* n n))\n" +
+                                 "(square 2)\n" +
+                                 "(square 3)");
+            interpreter.saveImage(image);
+            Interpreter restored = Interpreter.loadImage(image);
+            restored.evaluate("(square 2)");
+            assertEquals(1, restored.memoHits());
+            restored.setMemoCapacity(1);
+            restored.evaluate("(square 3)\n" +
+                              "(square 2)");
+            assertEquals(1, restored.memoHits());
+            assertEquals(2, restored.memoMisses());
+        } finally {
+            Files.delete(image);
+        }
+    }
+
+    @Test
+    public void repeatedSnippetsFollowRedefinitions() throws Exception {
+        interpreter.evaluate("(define (f x) (* x 2))");
+        interpreter.evaluate("(print (f 2))");
+        interpreter.evaluate("(print (f 2))");
+        interpreter.evaluate("(define (f x) (* x 3))");
+        interpreter.evaluate("(print (f 2))");
+        interpreter.evaluate("(define counter 0)\n(define counter (increment counter))\n(print counter)");
+        interpreter.evaluate("(define counter 0)\n(define counter (increment counter))\n(print counter)");
+        assertOutput("4.04.06.01.01.0");
+    }
+
+    @Test
+    public void profiling() throws Exception {
+        interpreter.setProfiling(true);
+        interpreter.evaluate("(define (fib n) (if (< n 2) n (+ (fib (- n 1)) (fib (- n 2)))))\n" +
+                             "(fib 10)");
+        assertTrue(interpreter.profileReport(), interpreter.profileReport().matches("(?s).*\\nfib +177 +\\S+ +\\S+ +10 +\\d+\\n.*"));
+        assertTrue(interpreter.collapsedStacks().contains("\nfib;fib;+ "));
+    }
+
+    @Test
+    public void profilingDeepRecursionTruncatesStacks() throws Exception {
+        interpreter.setProfiling(true);
+        interpreter.evaluate("(define (down n) (if (= n 0) 0 (+ 1 (down (- n 1)))))\n" +
+                             "(down 600)");
+        assertTrue(interpreter.profileReport().matches("(?s).*\\ndown +601 +\\S+ +\\S+ +601 +\\d+\\n.*"));
+        int deepest = 0;
+        for (String stack : interpreter.collapsedStacks().split("\n"))
+            deepest = Math.max(deepest, stack.split(";").length);
+        assertEquals(512, deepest);
+    }
+
+    @Test
+    public void limitsAbortRunawayEvaluation() throws Exception {
+        interpreter.evaluate("(define (spin) (spin))\n" +
+                             "(define (down n) (+ 1 (down n)))\n" +
+                             "(define (grow items) (grow (cons 1 items)))");
+        interpreter.setLimits(Limits.NONE.steps(10000));
+        assertAborted("(spin)", "Step limit of 10000 exceeded");
+        interpreter.setLimits(Limits.NONE.depth(100));
+        assertAborted("(down 1)", "Depth limit of 100 exceeded");
+        interpreter.setLimits(Limits.NONE.cells(1000));
+        assertAborted("(grow nil)", "Cell limit of 1000 exceeded");
+        interpreter.setLimits(Limits.NONE.timeout(50, TimeUnit.MILLISECONDS));
+        assertAborted("(spin)", "Time limit of 50 ms exceeded");
+        interpreter.setLimits(Limits.NONE);
+        assertAborted("(down 1)", "Stack overflow");
+        interpreter.evaluate("(print (increment 1))");
+        assertOutput("2.0");
+    }
+
+    @Test
+    public void limitsApplyToSequencePipelines() throws Exception {
+        interpreter.setLimits(Limits.NONE.steps(1000));
+        assertAborted("(reduce <primitive>+ 0 (range 0 1e12))", "Step limit of 1000 exceeded");
+        interpreter.setLimits(Limits.NONE.timeout(50, TimeUnit.MILLISECONDS));
+        assertAborted("(print (range 0 1e15))", "Time limit of 50 ms exceeded");
+    }
+
+    @Test
+    public void cancelWithoutLimits() throws Exception {
+        assertCancellable(interpreter);
+    }
+
+    @Test(timeout = 10000)
+    public void cancelCompiledLoops() throws Exception {
+        assertCancellable(new Interpreter(CompilationMode.COMPILED));
+    }
+
+    private void assertCancellable(Interpreter interpreter) throws Exception {
+        interpreter.evaluate("(define (spin n) (spin n))");
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> running = executor.submit(() -> interpreter.evaluate("(spin 1)"));
+            while (!running.isDone()) {
+                interpreter.cancel();
+                Thread.sleep(10);
+            }
+            running.get();
+            fail();
+        } catch (ExecutionException e) {
+            assertEquals("Evaluation cancelled", e.getCause().getMessage());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void cancelStopsEscapedFutures() throws Exception {
+        interpreter.evaluate("(define (spin) (spin))\n" +
+                             "(define f (future (spin)))");
+        interpreter.cancel();
+        try {
+            interpreter.evaluate("(force f)");
+            fail();
+        } catch (EvaluationAbortedException e) {
+            assertTrue(e.getMessage().endsWith("Evaluation cancelled"));
+        }
+    }
+
+    private void assertAborted(String code, String message) {
+        try {
+            interpreter.evaluate(code);
+            fail();
+        } catch (EvaluationAbortedException e) {
+            assertEquals(message, e.getMessage());
+        }
+    }
+
+    @Test
+    public void futuresAndParallelForms() throws Exception {
+        interpreter.evaluate("(define (fib n) (if (< n 2) n (+ (fib (- n 1)) (fib (- n 2)))))\n" +
+                             "(define (pfib n)\n" +
+                             "  (if (< n 10) (fib n)\n" +
+                             "    (let ((left (future (pfib (- n 1)))))\n" +
+                             "      (+ (pfib (- n 2)) (force left)))))\n" +
+                             "(print (pfib 20))\n" +
+                             "(print (parallel (fib 10) (fib 11) (fib 12)))\n" +
+                             "(print (pmap fib (list 5 6 7)))\n" +
+                             "(print (force 3))");
+        assertOutput("6765.0(55.0 89.0 144.0)(5.0 8.0 13.0)3.0");
+    }
+
+    @Test(timeout = 10000)
+    public void failedParallelFormStopsSiblings() throws Exception {
+        interpreter.evaluate("(define (spin) (spin))");
+        try {
+            interpreter.evaluate("(parallel (car 1) (spin) (spin))");
+            fail();
+        } catch (RuntimeException e) {
+            assertEquals("Cannot take car of 1.0", e.getMessage());
+        }
+        interpreter.evaluate("(print (parallel 1 2))");
+        assertOutput("(1.0 2.0)");
+    }
+
+    @Test
+    public void promisesEvaluateOnce() throws Exception {
+        interpreter.evaluate("(define p (delay (print \"computing \")))\n" +
+                             "(force p)\n" +
+                             "(print (force p))");
+        assertOutput("computing computing ");
+    }
+
+    @Test
+    public void lazySequences() throws Exception {
+        interpreter.evaluate("(define naturals (iterate increment 0))\n" +
+                             "(print (take 3 (map (* 10) naturals)))\n" +
+                             "(print (take 2 (filter (lambda (n) (> n 5)) (list 1 7 3 9 11))))\n" +
+                             "(print (reduce + 0 (range 0 1000000)))");
+        assertOutput("(0.0 10.0 20.0)(7.0 9.0)4.999995E11");
+    }
+
+    @Test
+    public void callSitesFollowRedefinitions() throws Exception {
+        interpreter.evaluate("(define (op x y) (<primitive>+ x y))\n" +
+                             "(define (use) (op 5 2))\n" +
+                             "(print (use))\n" +
+                             "(define (op x y) (<primitive>- x y))\n" +
+                             "(print (use))\n" +
+                             "(define (op x y) (list x y))\n" +
+                             "(print (use))\n" +
+                             "(define op <primitive>*)\n" +
+                             "(print (use))");
+        assertOutput("7.03.0(5.0 2.0)10.0");
+    }
+
+    @Test
+    public void optimizedForms() throws Exception {
+        System.out.print(interpreter.optimize("(+ 1 2)\n" +
+                                              "(increment 5)\n" +
+                                              "((+ 1) 2)\n" +
+                                              "(define x 4)\n" +
+                                              "(+ (* 2 3) x)\n" +
+                                              "(lambda (x) (if (< 1 2) (+ x 1) (print x)))"));
+        assertOutput("(guard + 3.0)\n" +
+                     "(guard increment 6.0)\n" +
+                     "(guard + 3.0)\n" +
+                     "(define x 4.0)\n" +
+                     "(guard + (guard * (<primitive>+ 6.0 x)))\n" +
+                     "(lambda (x) (guard < (guard + (<primitive>+ x 1.0))))\n");
+    }
+
+    @Test
+    public void optimizedFormsSeeEarlierDefinitions() throws Exception {
+        System.out.print(interpreter.optimize("(define (sq x) (<primitive>* x x))\n" +
+                                              "(sq 3)\n" +
+                                              "(define (add x y) (+ x y))\n" +
+                                              "(define x 4)\n" +
+                                              "(add 3 x)"));
+        assertOutput("(define sq (lambda (x) (<primitive>* x x)))\n" +
+                     "(guard sq 9.0)\n" +
+                     "(define add (lambda (x y) (guard + (<primitive>+ x y))))\n" +
+                     "(define x 4.0)\n" +
+                     "(guard add (guard + (<primitive>+ 3.0 x)))\n");
+        interpreter.evaluate("(print sq)");
+        assertOutput("(define sq (lambda (x) (<primitive>* x x)))\n" +
+                     "(guard sq 9.0)\n" +
+                     "(define add (lambda (x y) (guard + (<primitive>+ x y))))\n" +
+                     "(define x 4.0)\n" +
+                     "(guard add (guard + (<primitive>+ 3.0 x)))\n" +
+                     "sq");
+    }
+
+    @Test
+    public void optimizedCallSitesFollowRedefinitions() throws Exception {
+        interpreter.setOptimizing(true);
+        interpreter.evaluate("(define (add x y) (+ x y))\n" +
+                             "(define (use) (add 5 2))\n" +
+                             "(print (use))\n" +
+                             "(define (add x y) (- x y))\n" +
+                             "(print (use))\n" +
+                             "(define + *)\n" +
+                             "(print (use))\n" +
+                             "(print add)\n" +
+                             "(define (scale x) (+ (* 2 3) x))\n" +
+                             "(print (scale 2))\n" +
+                             "(define * -)\n" +
+                             "(print (scale 2))");
+        assertOutput("7.03.03.0(lambda (x y) (- x y))12.0-2.0");
+    }
+
     private void assertOutput(String output) throws IOException {
         outputStream.flush();
         assertEquals(output, new String(outputStream.toByteArray()));